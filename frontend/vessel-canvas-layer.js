@@ -0,0 +1,213 @@
+import Layer from 'ol/layer/Layer';
+
+// Frame flags
+const RESET = 1;
+// Record flags, see VesselCanvasLayer.java
+const REMOVED = 1;
+const ABSOLUTE = 2;
+const MOVING = 4;
+// Slot flags
+const PRESENT = 8;
+
+const COORDINATE_SCALE = 1e5;
+const NO_HEADING = 511;
+const EARTH_RADIUS = 6378137; // Meters, as used by EPSG:3857
+const MAX_LATITUDE = 85.0511287798;
+const MARGIN = 16; // CSS pixels, vessels this far outside the view are still drawn
+const CLICK_TOLERANCE = 8; // CSS pixels
+
+// The shapes of the marker icons, centered on the vessel and pointing up
+const VESSEL_SHAPE = [0, -8, 4, -4, 4, 8, -4, 8, -4, -4];
+const NO_HEADING_SHAPE = [0, -8, 4, -4, 4, 4, 0, 8, -4, 4, -4, -4];
+
+/**
+ * Draws the vessels sent by VesselCanvasLayer.java on a single canvas on top of the <vaadin-map> it is a child of.
+ * The canvas is an unmanaged OpenLayers layer, so that the map connector, which owns the layers of the map, does not
+ * remove it. Coordinates are projected to EPSG:3857, which is the projection of the map view.
+ */
+class VesselCanvasLayer extends HTMLElement {
+  constructor() {
+    super();
+    this._length = 0;
+    this._grow(1024);
+    this._canvas = document.createElement('canvas');
+    this._canvas.style.position = 'absolute';
+    this._layer = new Layer({ render: (frameState) => this._render(frameState) });
+    this._onClick = this._onClick.bind(this);
+  }
+
+  connectedCallback() {
+    customElements.whenDefined('vaadin-map').then(() => this._attachToMap());
+  }
+
+  disconnectedCallback() {
+    if (this._map) {
+      this._map.un('singleclick', this._onClick);
+      this._layer.setMap(null);
+      this._map = null;
+    }
+  }
+
+  _attachToMap() {
+    if (!this.isConnected || this._map) {
+      return;
+    }
+    const map = this.parentElement && this.parentElement.configuration;
+    if (!map) {
+      // The map creates its OpenLayers instance when it is first rendered
+      requestAnimationFrame(() => this._attachToMap());
+      return;
+    }
+    this._map = map;
+    this._layer.setMap(map);
+    map.on('singleclick', this._onClick);
+  }
+
+  /**
+   * Applies a base64 encoded frame from the server, and redraws the layer.
+   */
+  applyFrame(base64) {
+    const bytes = Uint8Array.from(atob(base64), (c) => c.charCodeAt(0));
+    const view = new DataView(bytes.buffer);
+    if (view.getUint8(0) & RESET) {
+      this._flags.fill(0);
+      this._length = 0;
+    }
+    let offset = 1;
+    while (offset < view.byteLength) {
+      const slot = view.getUint16(offset, true);
+      const flags = view.getUint8(offset + 2);
+      offset += 3;
+      if (slot >= this._flags.length) {
+        this._grow(Math.max(slot + 1, this._flags.length * 2));
+      }
+      this._length = Math.max(this._length, slot + 1);
+      if (flags & REMOVED) {
+        this._flags[slot] = 0;
+        continue;
+      }
+      this._headings[slot] = view.getUint16(offset, true);
+      if (flags & ABSOLUTE) {
+        this._latitudes[slot] = view.getInt32(offset + 2, true);
+        this._longitudes[slot] = view.getInt32(offset + 6, true);
+        offset += 10;
+      } else {
+        this._latitudes[slot] += view.getInt16(offset + 2, true);
+        this._longitudes[slot] += view.getInt16(offset + 4, true);
+        offset += 6;
+      }
+      this._flags[slot] = PRESENT | (flags & MOVING);
+      this._project(slot);
+    }
+    this._layer.changed();
+  }
+
+  _grow(capacity) {
+    const grow = (array, Type) => {
+      const grown = new Type(capacity);
+      if (array) {
+        grown.set(array);
+      }
+      return grown;
+    };
+    this._latitudes = grow(this._latitudes, Int32Array);
+    this._longitudes = grow(this._longitudes, Int32Array);
+    this._x = grow(this._x, Float64Array);
+    this._y = grow(this._y, Float64Array);
+    this._headings = grow(this._headings, Uint16Array);
+    this._flags = grow(this._flags, Uint8Array);
+  }
+
+  _project(slot) {
+    const lon = this._longitudes[slot] / COORDINATE_SCALE;
+    const lat = Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, this._latitudes[slot] / COORDINATE_SCALE));
+    this._x[slot] = (EARTH_RADIUS * lon * Math.PI) / 180;
+    this._y[slot] = EARTH_RADIUS * Math.log(Math.tan(Math.PI / 4 + (lat * Math.PI) / 360));
+  }
+
+  _render(frameState) {
+    const [width, height] = frameState.size;
+    const ratio = frameState.pixelRatio;
+    const canvas = this._canvas;
+    if (canvas.width !== Math.round(width * ratio) || canvas.height !== Math.round(height * ratio)) {
+      canvas.width = Math.round(width * ratio);
+      canvas.height = Math.round(height * ratio);
+      canvas.style.width = `${width}px`;
+      canvas.style.height = `${height}px`;
+    }
+    const context = canvas.getContext('2d');
+    context.setTransform(1, 0, 0, 1, 0, 0);
+    context.clearRect(0, 0, canvas.width, canvas.height);
+    context.lineWidth = 1;
+    context.lineJoin = 'round';
+    context.strokeStyle = 'black';
+
+    // Map coordinates to CSS pixels: x' = a * x + c * y + e, y' = b * x + d * y + f
+    const [a, b, c, d, e, f] = frameState.coordinateToPixelTransform;
+    this._pixelTransform = [a, b, c, d, e, f];
+    for (let slot = 0; slot < this._length; slot++) {
+      const flags = this._flags[slot];
+      if (!(flags & PRESENT)) {
+        continue;
+      }
+      const x = a * this._x[slot] + c * this._y[slot] + e;
+      const y = b * this._x[slot] + d * this._y[slot] + f;
+      if (x < -MARGIN || y < -MARGIN || x > width + MARGIN || y > height + MARGIN) {
+        continue;
+      }
+      const heading = this._headings[slot];
+      const moving = flags & MOVING;
+      let shape;
+      if (heading === NO_HEADING) {
+        context.setTransform(ratio, 0, 0, ratio, x * ratio, y * ratio);
+        context.fillStyle = moving ? 'darkcyan' : 'darkred';
+        shape = NO_HEADING_SHAPE;
+      } else {
+        // Headings are clockwise from north, and so are canvas rotations from up
+        const radians = (heading * Math.PI) / 180;
+        const cos = Math.cos(radians) * ratio;
+        const sin = Math.sin(radians) * ratio;
+        context.setTransform(cos, sin, -sin, cos, x * ratio, y * ratio);
+        context.fillStyle = moving ? 'cyan' : 'red';
+        shape = VESSEL_SHAPE;
+      }
+      context.beginPath();
+      context.moveTo(shape[0], shape[1]);
+      for (let i = 2; i < shape.length; i += 2) {
+        context.lineTo(shape[i], shape[i + 1]);
+      }
+      context.closePath();
+      context.fill();
+      context.stroke();
+    }
+    return canvas;
+  }
+
+  _onClick(event) {
+    const transform = this._pixelTransform;
+    if (!transform) {
+      return;
+    }
+    const [a, b, c, d, e, f] = transform;
+    const [clickX, clickY] = event.pixel;
+    let nearest = -1;
+    let nearestDistance = CLICK_TOLERANCE * CLICK_TOLERANCE;
+    for (let slot = 0; slot < this._length; slot++) {
+      if (!(this._flags[slot] & PRESENT)) {
+        continue;
+      }
+      const dx = a * this._x[slot] + c * this._y[slot] + e - clickX;
+      const dy = b * this._x[slot] + d * this._y[slot] + f - clickY;
+      const distance = dx * dx + dy * dy;
+      if (distance <= nearestDistance) {
+        nearest = slot;
+        nearestDistance = distance;
+      }
+    }
+    if (nearest >= 0) {
+      this.dispatchEvent(new CustomEvent('vessel-click', { detail: { slot: nearest } }));
+    }
+  }
+}
+
+customElements.define('vessel-canvas-layer', VesselCanvasLayer);
@@ -0,0 +1,88 @@
+package com.example.demo.ais.adapter.digitraffic;
+
+import com.example.demo.ais.domain.data.VesselData;
+import com.example.demo.ais.domain.data.VesselLocation;
+import com.example.demo.ais.domain.primitives.MMSI;
+import com.example.demo.ais.util.Result;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures decoding the JSON payloads of the MQTT messages, using payloads shaped like the ones Digitraffic sends.
+ * Every vessel of the fleet has payloads of its own, so that the decoder does not see the same bytes every time.
+ * The {@code WithJackson} benchmarks measure the fallback that is used for payloads the scanner does not support.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class VesselMessageDecoderBenchmark {
+
+    @Param({"1000", "20000"})
+    public int fleetSize;
+
+    private VesselMessageDecoder decoder;
+    private MMSI[] mmsis;
+    private byte[][] locationPayloads;
+    private byte[][] metadataPayloads;
+    private Instant receivedAt;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        var random = new SplittableRandom(42);
+        decoder = new VesselMessageDecoder();
+        receivedAt = Instant.now();
+        mmsis = new MMSI[fleetSize];
+        locationPayloads = new byte[fleetSize][];
+        metadataPayloads = new byte[fleetSize][];
+        for (int i = 0; i < fleetSize; ++i) {
+            mmsis[i] = MMSI.fromInt(230_000_000 + i);
+            locationPayloads[i] = String.format(Locale.ROOT, "{\"time\":1684736842,\"sog\":%.1f,\"cog\":%.1f,\"navStat\":0,\"rot\":0,\"posAcc\":%b,"
+                    + "\"raim\":false,\"heading\":%d,\"lon\":%.6f,\"lat\":%.6f}", random.nextDouble(25),
+                    random.nextDouble(360), random.nextBoolean(), random.nextInt(360),
+                    random.nextDouble(10, 30), random.nextDouble(54, 66)).getBytes(StandardCharsets.UTF_8);
+            metadataPayloads[i] = ("{\"timestamp\":1684736842123,\"destination\":\"FI HEL\",\"name\":\"VESSEL %06d\","
+                    + "\"draught\":68,\"eta\":733376,\"posType\":1,\"refA\":83,\"refB\":16,\"refC\":9,\"refD\":9,"
+                    + "\"callSign\":\"OJ%04d\",\"imo\":9%06d,\"type\":70}").formatted(i, i % 10_000, i)
+                    .getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private int nextIndex() {
+        if (++next == fleetSize) {
+            next = 0;
+        }
+        return next;
+    }
+
+    @Benchmark
+    public Result<VesselLocation> decodeVesselLocation() {
+        var i = nextIndex();
+        return decoder.decodeVesselLocation(mmsis[i], locationPayloads[i], receivedAt);
+    }
+
+    @Benchmark
+    public Result<VesselData> decodeVesselData() {
+        var i = nextIndex();
+        return decoder.decodeVesselData(mmsis[i], metadataPayloads[i]);
+    }
+
+    @Benchmark
+    public Result<VesselLocation> decodeVesselLocationWithJackson() {
+        var i = nextIndex();
+        return decoder.decodeVesselLocationWithJackson(mmsis[i], locationPayloads[i], receivedAt);
+    }
+
+    @Benchmark
+    public Result<VesselData> decodeVesselDataWithJackson() {
+        var i = nextIndex();
+        return decoder.decodeVesselDataWithJackson(mmsis[i], metadataPayloads[i]);
+    }
+}
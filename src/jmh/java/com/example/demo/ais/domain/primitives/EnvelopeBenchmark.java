@@ -0,0 +1,42 @@
+package com.example.demo.ais.domain.primitives;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures testing the positions of a fleet against an envelope covering about a tenth of them, which is what
+ * filtering the events for a map viewport does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EnvelopeBenchmark {
+
+    @Param({"1000", "20000", "100000"})
+    public int fleetSize;
+
+    private Envelope envelope;
+    private Position[] positions;
+
+    @Setup
+    public void setUp() {
+        var random = new SplittableRandom(42);
+        envelope = new Envelope(new Latitude(59), new Longitude(22), new Latitude(61), new Longitude(28));
+        positions = new Position[fleetSize];
+        for (int i = 0; i < fleetSize; ++i) {
+            positions[i] = new AccuratePosition(new Latitude(random.nextDouble(54, 66)), new Longitude(random.nextDouble(10, 30)));
+        }
+    }
+
+    @Benchmark
+    public void contains(Blackhole blackhole) {
+        for (var position : positions) {
+            blackhole.consume(envelope.contains(position));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.demo.ais.service.impl;
+
+import com.example.demo.ais.domain.data.VesselLocation;
+import com.example.demo.ais.domain.primitives.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures putting vessel locations into a full cache and getting them back out, with and without a filter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CacheBenchmark {
+
+    @Param({"1000", "20000", "100000"})
+    public int fleetSize;
+
+    private Cache<MMSI, VesselLocation> cache;
+    private Cache<MMSI, VesselLocation> filteringCache;
+    private VesselLocation[] vesselLocations;
+    private MMSI[] mmsis;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        var timestamp = Instant.now();
+        var random = new SplittableRandom(42);
+        cache = new Cache<>();
+        filteringCache = new Cache<>(vesselLocation -> vesselLocation.timestamp().isAfter(Instant.EPOCH));
+        vesselLocations = new VesselLocation[fleetSize];
+        mmsis = new MMSI[fleetSize];
+        for (int i = 0; i < fleetSize; ++i) {
+            mmsis[i] = MMSI.fromInt(230_000_000 + i);
+            var position = new AccuratePosition(new Latitude(random.nextDouble(54, 66)), new Longitude(random.nextDouble(10, 30)));
+            vesselLocations[i] = new VesselLocation(timestamp, mmsis[i], position, Heading.UNAVAILABLE,
+                    CourseOverGround.UNAVAILABLE, SpeedOverGround.UNAVAILABLE);
+            cache.put(vesselLocations[i]);
+            filteringCache.put(vesselLocations[i]);
+        }
+    }
+
+    private int nextIndex() {
+        if (++next == fleetSize) {
+            next = 0;
+        }
+        return next;
+    }
+
+    @Benchmark
+    public void put() {
+        cache.put(vesselLocations[nextIndex()]);
+    }
+
+    @Benchmark
+    public Optional<VesselLocation> get() {
+        return cache.get(mmsis[nextIndex()]);
+    }
+
+    @Benchmark
+    public void putFiltered() {
+        filteringCache.put(vesselLocations[nextIndex()]);
+    }
+
+    @Benchmark
+    public Optional<VesselLocation> getFiltered() {
+        return filteringCache.get(mmsis[nextIndex()]);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.demo.ais.service.impl;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures scanning the coordinates of a fleet for an envelope covering about a tenth of them. The {@code DEFAULT}
+ * scanner is the one {@link ColumnarVesselLocationStore} uses, which is only vectorized when the benchmarks are run
+ * with the {@code vector} profile: mvn -Pbenchmark,vector package exec:exec
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EnvelopeScannerBenchmark {
+
+    @Param({"1000", "20000", "100000"})
+    public int fleetSize;
+
+    @Param({"SCALAR", "DEFAULT"})
+    public String scannerType;
+
+    private EnvelopeScanner scanner;
+    private int[] latitudes;
+    private int[] longitudes;
+    private long[] matches;
+
+    @Setup
+    public void setUp() {
+        var random = new SplittableRandom(42);
+        scanner = scannerType.equals("SCALAR") ? new ScalarEnvelopeScanner() : EnvelopeScanner.create();
+        latitudes = new int[fleetSize];
+        longitudes = new int[fleetSize];
+        for (int i = 0; i < fleetSize; ++i) {
+            latitudes[i] = random.nextInt(540_000_000, 660_000_000);
+            longitudes[i] = random.nextInt(100_000_000, 300_000_000);
+        }
+        matches = new long[(fleetSize + 63) >>> 6];
+    }
+
+    @Benchmark
+    public long[] scan() {
+        scanner.scan(latitudes, longitudes, fleetSize, 590_000_000, 610_000_000, 220_000_000, 280_000_000, matches);
+        return matches;
+    }
+}
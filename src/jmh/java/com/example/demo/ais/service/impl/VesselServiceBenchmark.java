@@ -0,0 +1,136 @@
+package com.example.demo.ais.service.impl;
+
+import com.example.demo.ais.domain.data.VesselData;
+import com.example.demo.ais.domain.data.VesselLocation;
+import com.example.demo.ais.domain.events.VesselEvent;
+import com.example.demo.ais.domain.primitives.*;
+import com.example.demo.ais.service.dpo.VesselDetails;
+import com.example.demo.ais.service.spi.AIS;
+import com.example.demo.ais.util.OverflowPolicy;
+import com.example.demo.ais.util.Result;
+import com.example.demo.ais.util.Subscription;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Measures the queries of the vessel service against a fleet that has been loaded through the AIS at startup. The
+ * vessels are spread evenly over the Baltic Sea, and named so that every search term matches ten of them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class VesselServiceBenchmark {
+
+    private static final int FIRST_MMSI = 230_000_000;
+
+    @Param({"1000", "20000", "100000"})
+    public int fleetSize;
+
+    @Param({"INDEXED", "COLUMNAR"})
+    public String locationStoreType;
+
+    private VesselServiceImpl vesselService;
+    private Envelope viewport;
+    private Envelope world;
+    private MMSI[] mmsis;
+    private String[] searchTerms;
+    private int next;
+
+    @Setup
+    public void setUp() throws InterruptedException {
+        var clock = Clock.systemUTC();
+        vesselService = new VesselServiceImpl(new FleetAIS(fleetSize, clock.instant()), clock, new SimpleMeterRegistry(),
+                "", 16, OverflowPolicy.COALESCE, fleetSize, 60, VesselLocationStore.Type.valueOf(locationStoreType));
+        world = new Envelope(new Latitude(-90), new Longitude(-180), new Latitude(90), new Longitude(180));
+        // Roughly what the map shows of the Gulf of Finland at the default zoom level
+        viewport = new Envelope(new Latitude(59), new Longitude(22), new Latitude(61), new Longitude(28));
+        // The snapshot is loaded asynchronously
+        while (vesselService.vesselLocations(world, Integer.MAX_VALUE).size() < fleetSize) {
+            Thread.sleep(10);
+        }
+        mmsis = new MMSI[fleetSize];
+        searchTerms = new String[fleetSize];
+        for (int i = 0; i < fleetSize; ++i) {
+            mmsis[i] = MMSI.fromInt(FIRST_MMSI + i);
+            // Leaving out the last digit matches ten vessels
+            searchTerms[i] = FleetAIS.vesselName(i).substring(0, 12).toLowerCase();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        vesselService.destroy();
+    }
+
+    @Benchmark
+    public Collection<VesselLocation> vesselLocationsInViewport() {
+        return vesselService.vesselLocations(viewport, 1000);
+    }
+
+    @Benchmark
+    public Collection<VesselLocation> vesselLocationsInWorld() {
+        return vesselService.vesselLocations(world, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public Optional<VesselDetails> findVesselDetailsByMmsi() {
+        return vesselService.findVesselDetails(mmsis[nextIndex()]);
+    }
+
+    @Benchmark
+    public Collection<VesselDetails> findVesselDetailsBySearchTerm() {
+        return vesselService.findVesselDetails(searchTerms[nextIndex()], 20);
+    }
+
+    private int nextIndex() {
+        if (++next == fleetSize) {
+            next = 0;
+        }
+        return next;
+    }
+
+    private record FleetAIS(int fleetSize, Instant timestamp) implements AIS {
+
+        static String vesselName(int index) {
+            return "VESSEL %06d".formatted(index);
+        }
+
+        @Override
+        public Result<Integer> loadAllVesselLocations(Consumer<VesselLocation> consumer) {
+            var random = new SplittableRandom(42);
+            for (int i = 0; i < fleetSize; ++i) {
+                var position = new AccuratePosition(new Latitude(random.nextDouble(54, 66)), new Longitude(random.nextDouble(10, 30)));
+                consumer.accept(new VesselLocation(timestamp, MMSI.fromInt(FIRST_MMSI + i), position,
+                        Heading.ofDegrees(random.nextInt(360)), CourseOverGround.ofDegrees(random.nextDouble(360)),
+                        SpeedOverGround.ofKnots(random.nextDouble(25))));
+            }
+            return Result.success(fleetSize);
+        }
+
+        @Override
+        public Result<Integer> loadAllVesselData(Consumer<VesselData> consumer) {
+            for (int i = 0; i < fleetSize; ++i) {
+                consumer.accept(new VesselData(timestamp, MMSI.fromInt(FIRST_MMSI + i), new VesselName(vesselName(i)),
+                        new CallSign("CS" + i), ShipType.of(70)));
+            }
+            return Result.success(fleetSize);
+        }
+
+        @Override
+        public Subscription subscribeToVesselEvents(Consumer<VesselEvent> subscriber) {
+            return () -> {
+                // NOP
+            };
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.demo.ais.util;
+
+import com.example.demo.ais.domain.data.VesselLocation;
+import com.example.demo.ais.domain.events.VesselEvent;
+import com.example.demo.ais.domain.events.VesselLocationUpdatedEvent;
+import com.example.demo.ais.domain.primitives.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.SplittableRandom;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a full dispatch window: every vessel of the fleet reports twice, and the window is then dispatched to a
+ * single subscriber. The dispatching is triggered by the benchmark instead of the scheduler, so that the whole window
+ * is measured in the same thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TumblingWindowEventDispatcherBenchmark {
+
+    @Param({"1000", "20000", "100000"})
+    public int fleetSize;
+
+    @Param({"false", "true"})
+    public boolean coalescing;
+
+    private TumblingWindowEventDispatcher<VesselEvent> dispatcher;
+    private Runnable dispatchEvents;
+    private VesselEvent[] events;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        var scheduler = new ScheduledThreadPoolExecutor(1) {
+            @Override
+            public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+                dispatchEvents = command;
+                return null;
+            }
+        };
+        dispatcher = coalescing
+                ? new TumblingWindowEventDispatcher<>(scheduler, Duration.ofSeconds(1), VesselEvent::mmsi, (previous, next) -> next)
+                : new TumblingWindowEventDispatcher<>(scheduler, Duration.ofSeconds(1));
+        dispatcher.subscribe(blackhole::consume);
+        scheduler.shutdown();
+
+        var timestamp = Instant.now();
+        var random = new SplittableRandom(42);
+        events = new VesselEvent[fleetSize * 2];
+        for (int i = 0; i < events.length; ++i) {
+            var position = new AccuratePosition(new Latitude(random.nextDouble(54, 66)), new Longitude(random.nextDouble(10, 30)));
+            events[i] = new VesselLocationUpdatedEvent(new VesselLocation(timestamp, MMSI.fromInt(230_000_000 + i % fleetSize),
+                    position, Heading.UNAVAILABLE, CourseOverGround.UNAVAILABLE, SpeedOverGround.UNAVAILABLE));
+        }
+    }
+
+    @Benchmark
+    public void enqueueAndDispatch() {
+        for (var event : events) {
+            dispatcher.enqueue(event);
+        }
+        dispatchEvents.run();
+    }
+}
@@ -4,6 +4,7 @@ import com.example.demo.ais.service.spi.AIS;
 import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -17,9 +18,11 @@ class AISConfig {
 
     @Bean
     @ConditionalOnProperty(name = "ais.source", havingValue = "digitraffic")
-    public AIS digitTrafficAIS(MeterRegistry meterRegistry, Clock clock) {
+    public AIS digitTrafficAIS(MeterRegistry meterRegistry, Clock clock,
+                               @Value("${ais.digitraffic.decoding.threads:4}") int decodingThreads,
+                               @Value("${ais.digitraffic.decoding.queue-capacity:4096}") int decodingQueueCapacity) {
         log.info("Loading AIS data from Digitraffic");
-        return new DigiTrafficAIS(meterRegistry, clock);
+        return new DigiTrafficAIS(meterRegistry, clock, decodingThreads, decodingQueueCapacity);
     }
 
     @Bean
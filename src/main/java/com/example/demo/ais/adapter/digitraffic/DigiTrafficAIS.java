@@ -4,6 +4,7 @@ import com.example.demo.ais.domain.data.VesselData;
 import com.example.demo.ais.domain.data.VesselLocation;
 import com.example.demo.ais.domain.events.VesselEvent;
 import com.example.demo.ais.service.spi.AIS;
+import com.example.demo.ais.util.PartitionedExecutor;
 import com.example.demo.ais.util.Result;
 import com.example.demo.ais.util.Subscription;
 import io.micrometer.core.instrument.MeterRegistry;
@@ -12,25 +13,26 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Clock;
-import java.util.Collection;
-import java.util.concurrent.*;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.function.Consumer;
 
 class DigiTrafficAIS implements AIS {
 
     private static final Logger log = LoggerFactory.getLogger(DigiTrafficAIS.class);
-    private static final int SUBSCRIBER_NOTIFICATION_JOB_QUEUE_CAPACITY = 1000;
+    private static final Duration DECODING_BACKPRESSURE_TIMEOUT = Duration.ofMillis(100);
     private final DigiTrafficRestClient restClient = new DigiTrafficRestClient();
     private final DigiTrafficMqttClient mqttClient;
     private final ScheduledExecutorService mqttReconnectionThread;
-    private final ExecutorService subscriberNotificationThread;
+    private final PartitionedExecutor decodingPipeline;
 
-    public DigiTrafficAIS(MeterRegistry meterRegistry, Clock clock) {
+    public DigiTrafficAIS(MeterRegistry meterRegistry, Clock clock, int decodingThreads, int decodingQueueCapacity) {
         log.info("Starting MQTT reconnection thread");
         mqttReconnectionThread = Executors.newSingleThreadScheduledExecutor();
-        log.info("Starting subscriber notification thread");
-        subscriberNotificationThread = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingDeque<>(SUBSCRIBER_NOTIFICATION_JOB_QUEUE_CAPACITY));
-        mqttClient = new DigiTrafficMqttClient(mqttReconnectionThread, subscriberNotificationThread, meterRegistry, clock);
+        log.info("Starting {} MQTT message decoding threads", decodingThreads);
+        decodingPipeline = new PartitionedExecutor("ais.mqtt.decoding", decodingThreads, decodingQueueCapacity, DECODING_BACKPRESSURE_TIMEOUT, meterRegistry);
+        mqttClient = new DigiTrafficMqttClient(mqttReconnectionThread, decodingPipeline, meterRegistry, clock);
     }
 
     @PreDestroy
@@ -38,18 +40,18 @@ class DigiTrafficAIS implements AIS {
         mqttClient.destroy();
         log.info("Shutting down MQTT reconnection thread");
         mqttReconnectionThread.shutdown();
-        log.info("Shutting down subscriber notification thread");
-        subscriberNotificationThread.shutdown();
+        log.info("Shutting down MQTT message decoding threads");
+        decodingPipeline.shutdown();
     }
 
     @Override
-    public Result<Collection<VesselLocation>> loadAllVesselLocations() {
-        return restClient.loadAllVesselLocations();
+    public Result<Integer> loadAllVesselLocations(Consumer<VesselLocation> consumer) {
+        return restClient.loadAllVesselLocations(consumer);
     }
 
     @Override
-    public Result<Collection<VesselData>> loadAllVesselData() {
-        return restClient.loadAllVesselData();
+    public Result<Integer> loadAllVesselData(Consumer<VesselData> consumer) {
+        return restClient.loadAllVesselData(consumer);
     }
 
     @Override
@@ -5,12 +5,12 @@ import com.example.demo.ais.domain.data.VesselLocation;
 import com.example.demo.ais.domain.events.VesselDataUpdatedEvent;
 import com.example.demo.ais.domain.events.VesselEvent;
 import com.example.demo.ais.domain.events.VesselLocationUpdatedEvent;
-import com.example.demo.ais.domain.primitives.*;
+import com.example.demo.ais.domain.primitives.MMSI;
+import com.example.demo.ais.util.PartitionedExecutor;
+import com.example.demo.ais.util.PipelineLatency;
 import com.example.demo.ais.util.Result;
 import com.example.demo.ais.util.SubscriberList;
 import com.example.demo.ais.util.Subscription;
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import org.eclipse.paho.client.mqttv3.*;
@@ -19,9 +19,6 @@ import org.slf4j.LoggerFactory;
 
 import java.time.Clock;
 import java.time.Duration;
-import java.time.Instant;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
@@ -35,10 +32,10 @@ class DigiTrafficMqttClient {
     private static final Duration RETRY_INTERVAL = Duration.ofSeconds(10);
     private static final Duration KEEP_ALIVE_INTERVAL = Duration.ofMinutes(1);
     private final ScheduledExecutorService mqttReconnectionThread;
-    private final ExecutorService subscriberNotificationThread;
+    private final PartitionedExecutor decodingPipeline;
     private final Clock clock;
-    private final SubscriberList<Consumer<VesselEvent>> vesselEventSubscribers = new SubscriberList<>();
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SubscriberList<Consumer<VesselEvent>> vesselEventSubscribers;
+    private final VesselMessageDecoder decoder = new VesselMessageDecoder();
     private final IMqttClient mqttClient;
     private final Counter receivedStatusMessages;
     private final Counter receivedVesselLocationMessages;
@@ -46,21 +43,24 @@ class DigiTrafficMqttClient {
     private final Counter receivedMessages;
     private final Counter connectionsLost;
     private final Counter connectionsOpened;
+    private final PipelineLatency decodeLatency;
 
     DigiTrafficMqttClient(
             ScheduledExecutorService mqttReconnectionThread,
-            ExecutorService subscriberNotificationThread,
+            PartitionedExecutor decodingPipeline,
             MeterRegistry meterRegistry,
             Clock clock) {
         this.mqttReconnectionThread = mqttReconnectionThread;
-        this.subscriberNotificationThread = subscriberNotificationThread;
+        this.decodingPipeline = decodingPipeline;
         this.clock = clock;
+        this.vesselEventSubscribers = new SubscriberList<>(meterRegistry, "ais.mqtt.vessel-events");
         this.receivedStatusMessages = meterRegistry.counter("ais.mqtt.status.received-messages");
         this.receivedVesselLocationMessages = meterRegistry.counter("ais.mqtt.vessel-location.received-messages");
         this.receivedVesselMetadataMessages = meterRegistry.counter("ais.mqtt.vessel-metadata.received-messages");
         this.receivedMessages = meterRegistry.counter("ais.mqtt.received-messages");
         this.connectionsLost = meterRegistry.counter("ais.mqtt.connections.lost");
         this.connectionsOpened = meterRegistry.counter("ais.mqtt.connections.opened");
+        this.decodeLatency = new PipelineLatency("decode", clock, meterRegistry);
 
         try {
             mqttClient = new MqttClient(MQTT_URL, APPLICATION_NAME);
@@ -134,52 +134,28 @@ class DigiTrafficMqttClient {
 
     private void onVesselLocationChangeMessage(String topic, MqttMessage message) {
         receivedVesselLocationMessages.increment();
-        convertToVesselLocation(topic, message)
+        var receivedAt = clock.instant();
+        extractMMSIFromTopicName(topic)
                 .doOnError(reason -> log.error("Error processing vessel location change message: {}", reason))
-                .doIfSuccessful(this::notifySubscribersOfVesselLocationChange);
-    }
-
-    private Result<VesselLocation> convertToVesselLocation(String topic, MqttMessage message) {
-        try {
-            VesselLocationMessage vlm = objectMapper.readerFor(VesselLocationMessage.class).readValue(message.getPayload());
-            // The timestamp coming from this message might not be the actual timestamp but only the UTC second.
-            // Therefore, we ignore it and use the current timestamp instead.
-            var mmsi = extractMMSIFromTopicName(topic);
-            var lon = new Longitude(vlm.lon());
-            var lat = new Latitude(vlm.lat());
-            var heading = Heading.ofDegrees(vlm.heading());
-            var position = vlm.posAcc() ? new AccuratePosition(lat, lon) : new InaccuratePosition(lat, lon);
-            var cog = CourseOverGround.ofDegrees(vlm.cog());
-            var sog = SpeedOverGround.ofKnots(vlm.sog());
-            return Result.success(new VesselLocation(clock.instant(), mmsi, position, heading, cog, sog));
-        } catch (Throwable ex) {
-            return Result.failure(ex);
-        }
+                .doIfSuccessful(mmsi -> decodingPipeline.execute(mmsi.intValue(), () -> decoder
+                        .decodeVesselLocation(mmsi, message.getPayload(), receivedAt)
+                        .doOnError(reason -> log.error("Error processing vessel location change message: {}", reason))
+                        .doIfSuccessful(this::notifySubscribersOfVesselLocationChange)));
     }
 
     private void notifySubscribersOfVesselLocationChange(VesselLocation vesselLocation) {
+        decodeLatency.recordSince(vesselLocation.timestamp()); // The timestamp is when the message was received
         notifySubscribersOfVesselEvent(new VesselLocationUpdatedEvent(vesselLocation));
     }
 
     private void onVesselMetadataChangeMessage(String topic, MqttMessage message) {
         receivedVesselMetadataMessages.increment();
-        convertToVesselData(topic, message)
+        extractMMSIFromTopicName(topic)
                 .doOnError(reason -> log.error("Error processing vessel metadata change message: {}", reason))
-                .doIfSuccessful(this::notifySubscribersOfVesselDataChange);
-    }
-
-    private Result<VesselData> convertToVesselData(String topic, MqttMessage message) {
-        try {
-            VesselMetadataMessage vmm = objectMapper.readerFor(VesselMetadataMessage.class).readValue(message.getPayload());
-            var mmsi = extractMMSIFromTopicName(topic);
-            var timestamp = Instant.ofEpochMilli(vmm.timestamp());
-            var vesselName = new VesselName(vmm.name());
-            var callSign = new CallSign(vmm.callSign());
-            var shipType = new ShipType(vmm.type());
-            return Result.success(new VesselData(timestamp, mmsi, vesselName, callSign, shipType));
-        } catch (Throwable ex) {
-            return Result.failure(ex);
-        }
+                .doIfSuccessful(mmsi -> decodingPipeline.execute(mmsi.intValue(), () -> decoder
+                        .decodeVesselData(mmsi, message.getPayload())
+                        .doOnError(reason -> log.error("Error processing vessel metadata change message: {}", reason))
+                        .doIfSuccessful(this::notifySubscribersOfVesselDataChange)));
     }
 
     private void notifySubscribersOfVesselDataChange(VesselData vesselData) {
@@ -187,50 +163,16 @@ class DigiTrafficMqttClient {
     }
 
     private void notifySubscribersOfVesselEvent(VesselEvent event) {
-        try {
-            subscriberNotificationThread.submit(() -> vesselEventSubscribers.forEach(subscriber -> subscriber.accept(event)));
-        } catch (RejectedExecutionException ex) {
-            log.warn("The subscriber notification thread is receiving more events than it can handle");
-        }
+        vesselEventSubscribers.forEach(Consumer::accept, event);
     }
 
-    private MMSI extractMMSIFromTopicName(String topic) {
+    private Result<MMSI> extractMMSIFromTopicName(String topic) {
         // topic format is vessels-v2/<mmsi>/<suffix>
-        var rawMMSI = topic.substring(11, 20); // MMSI:s are always exactly 9 digits
-        return new MMSI(rawMMSI);
-    }
-
-    @JsonIgnoreProperties(ignoreUnknown = true)
-    static
-    private record VesselLocationMessage(
-            long time,
-            double sog,
-            double cog,
-            int navStat,
-            int rot,
-            boolean posAcc,
-            boolean raim,
-            int heading,
-            double lon,
-            double lat
-    ) {
-    }
-
-    @JsonIgnoreProperties(ignoreUnknown = true)
-    private record VesselMetadataMessage(
-            long timestamp,
-            String destination,
-            String name,
-            int draught,
-            long eta,
-            int posType,
-            int refA,
-            int refB,
-            int refC,
-            int refD,
-            String callSign,
-            int imo,
-            int type
-    ) {
+        // A bad topic must not throw, as Paho drops the connection if a message listener throws
+        try {
+            return Result.success(MMSI.parse(topic, 11, 20)); // MMSI:s are always exactly 9 digits
+        } catch (RuntimeException ex) {
+            return Result.failure("Invalid topic " + topic + ": " + ex.getMessage());
+        }
     }
 }
@@ -5,12 +5,12 @@ import com.example.demo.ais.domain.data.VesselLocation;
 import com.example.demo.ais.domain.primitives.*;
 import com.example.demo.ais.util.Result;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.web.client.RestTemplateBuilder;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.web.client.RestTemplate;
@@ -19,10 +19,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.List;
-import java.util.stream.Stream;
+import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.zip.GZIPInputStream;
 
 class DigiTrafficRestClient {
@@ -40,29 +38,48 @@ class DigiTrafficRestClient {
                 .build();
     }
 
-    Result<Collection<VesselLocation>> loadAllVesselLocations() {
-        return doLoadAllVesselLocations()
-                .map(this::convertToVesselLocations)
+    Result<Integer> loadAllVesselLocations(Consumer<VesselLocation> consumer) {
+        return doRestGet(Constants.VESSEL_LOCATIONS_URL, is -> parseVesselLocations(is, consumer))
                 .doOnError(reason -> log.error("Error fetching vessel locations: {}", reason));
     }
 
-    private Result<FeatureCollection> doLoadAllVesselLocations() {
-        return doRestGet(Constants.VESSEL_LOCATIONS_URL, is -> objectMapper.readerFor(FeatureCollection.class).readValue(is));
-    }
-
-    private Collection<VesselLocation> convertToVesselLocations(FeatureCollection featureCollection) {
-        return Arrays.stream(featureCollection.features())
-                .flatMap(this::convertToVesselLocation)
-                .toList();
+    /**
+     * Walks through the GeoJSON feature collection with a streaming parser, binding and converting one feature at a
+     * time, so that the whole collection is never held in memory.
+     */
+    private int parseVesselLocations(InputStream inputStream, Consumer<VesselLocation> consumer) throws IOException {
+        try (var parser = objectMapper.getFactory().createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a GeoJSON feature collection");
+            }
+            var featureReader = objectMapper.readerFor(Feature.class);
+            var count = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                var fieldName = parser.getCurrentName();
+                if (parser.nextToken() == JsonToken.START_ARRAY && "features".equals(fieldName)) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        Feature feature = featureReader.readValue(parser);
+                        var vesselLocation = convertToVesselLocation(feature);
+                        if (vesselLocation.isPresent()) {
+                            consumer.accept(vesselLocation.get());
+                            count++;
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return count;
+        }
     }
 
-    private Stream<VesselLocation> convertToVesselLocation(Feature feature) {
+    private Optional<VesselLocation> convertToVesselLocation(Feature feature) {
         try {
             var timestamp = Instant.ofEpochMilli(feature.properties().timestampExternal());
             var mmsi = MMSI.fromInt(feature.mmsi());
             if (!"point".equalsIgnoreCase(feature.geometry().type())) {
                 log.warn("Unknown geometry while parsing vessel location");
-                return Stream.empty();
+                return Optional.empty();
             }
             var lon = new Longitude(feature.geometry().coordinates()[0]);
             var lat = new Latitude(feature.geometry().coordinates()[1]);
@@ -70,41 +87,44 @@ class DigiTrafficRestClient {
             var position = feature.properties().posAcc() ? new AccuratePosition(lat, lon) : new InaccuratePosition(lat, lon);
             var cog = CourseOverGround.ofDegrees(feature.properties().cog());
             var sog = SpeedOverGround.ofKnots(feature.properties().sog());
-            return Stream.of(new VesselLocation(timestamp, mmsi, position, heading, cog, sog));
+            return Optional.of(new VesselLocation(timestamp, mmsi, position, heading, cog, sog));
         } catch (Throwable ex) {
             log.debug(feature.toString());
             log.debug("Exception while parsing vessel location", ex);
-            return Stream.empty();
+            return Optional.empty();
         }
     }
 
-    Result<Collection<VesselData>> loadAllVesselData() {
-        return doLoadAllVesselData()
-                .map(this::convertToVesselData)
+    Result<Integer> loadAllVesselData(Consumer<VesselData> consumer) {
+        return doRestGet(Constants.VESSEL_DATA_URL, is -> parseVesselData(is, consumer))
                 .doOnError(reason -> log.error("Error fetching vessel data: {}", reason));
     }
 
-    private Result<List<VesselMetadata>> doLoadAllVesselData() {
-        return doRestGet(Constants.VESSEL_DATA_URL, is -> objectMapper.readerForListOf(VesselMetadata.class).readValue(is));
-    }
-
-    private Collection<VesselData> convertToVesselData(Collection<VesselMetadata> vesselMetadata) {
-        return vesselMetadata.stream()
-                .flatMap(this::convertToVesselData)
-                .toList();
+    private int parseVesselData(InputStream inputStream, Consumer<VesselData> consumer) throws IOException {
+        try (MappingIterator<VesselMetadata> iterator = objectMapper.readerFor(VesselMetadata.class).readValues(inputStream)) {
+            var count = 0;
+            while (iterator.hasNextValue()) {
+                var vesselData = convertToVesselData(iterator.nextValue());
+                if (vesselData.isPresent()) {
+                    consumer.accept(vesselData.get());
+                    count++;
+                }
+            }
+            return count;
+        }
     }
 
-    private Stream<VesselData> convertToVesselData(VesselMetadata vesselMetadata) {
+    private Optional<VesselData> convertToVesselData(VesselMetadata vesselMetadata) {
         try {
             var timestamp = Instant.ofEpochMilli(vesselMetadata.timestamp());
             var mmsi = MMSI.fromInt(vesselMetadata.mmsi);
             var vesselName = new VesselName(vesselMetadata.name());
             var callSign = new CallSign(vesselMetadata.callSign());
-            var shipType = new ShipType(vesselMetadata.shipType());
-            return Stream.of(new VesselData(timestamp, mmsi, vesselName, callSign, shipType));
+            var shipType = ShipType.of(vesselMetadata.shipType());
+            return Optional.of(new VesselData(timestamp, mmsi, vesselName, callSign, shipType));
         } catch (Throwable ex) {
             log.debug("Exception while parsing vessel metadata", ex);
-            return Stream.empty();
+            return Optional.empty();
         }
     }
 
@@ -113,45 +133,39 @@ class DigiTrafficRestClient {
         R parseInputStream(InputStream inputStream) throws IOException;
     }
 
+    /**
+     * Parses the response body while it is being downloaded, instead of buffering it in memory first.
+     */
     @SuppressWarnings("DataFlowIssue")
     private <R> Result<R> doRestGet(String url, ResultParser<R> resultMapper) {
-        final var httpHeaders = new HttpHeaders();
-        httpHeaders.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
-        httpHeaders.set("Digitraffic-User", Constants.APPLICATION_NAME);
-
         try {
-            var response = restTemplate.exchange(
+            return restTemplate.execute(
                     url,
                     HttpMethod.GET,
-                    new HttpEntity<>(httpHeaders),
-                    Resource.class
+                    request -> {
+                        request.getHeaders().set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+                        request.getHeaders().set("Digitraffic-User", Constants.APPLICATION_NAME);
+                    },
+                    response -> {
+                        if (!response.getStatusCode().is2xxSuccessful()) {
+                            return Result.failure("Server responded with error %d".formatted(response.getStatusCode().value()));
+                        }
+
+                        var contentEncoding = response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+                        if (!"gzip".equalsIgnoreCase(contentEncoding)) {
+                            return Result.failure("Unknown content encoding");
+                        }
+
+                        try (GZIPInputStream gzipInputStream = new GZIPInputStream(response.getBody())) {
+                            return Result.success(resultMapper.parseInputStream(gzipInputStream));
+                        }
+                    }
             );
-
-            if (!response.getStatusCode().is2xxSuccessful()) {
-                return Result.failure("Server responded with error %d".formatted(response.getStatusCode().value()));
-            }
-
-            if (!response.hasBody()) {
-                return Result.failure("Response had no body");
-            }
-
-            var contentEncoding = response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
-            if (!"gzip".equalsIgnoreCase(contentEncoding)) {
-                return Result.failure("Unknown content encoding");
-            }
-
-            try (GZIPInputStream gzipInputStream = new GZIPInputStream(response.getBody().getInputStream())) {
-                return Result.success(resultMapper.parseInputStream(gzipInputStream));
-            }
         } catch (Throwable ex) {
             return Result.failure(ex);
         }
     }
 
-    @JsonIgnoreProperties(ignoreUnknown = true)
-    private record FeatureCollection(String type, String dataUpdatedTime, Feature[] features) {
-    }
-
     @JsonIgnoreProperties(ignoreUnknown = true)
     private record Feature(int mmsi, String type, Geometry geometry, FeatureProperties properties) {
     }
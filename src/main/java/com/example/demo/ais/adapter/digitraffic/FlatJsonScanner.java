@@ -0,0 +1,268 @@
+package com.example.demo.ais.adapter.digitraffic;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads the fields of a flat JSON object straight from the bytes of a payload, without building any tree or
+ * intermediate objects. It only supports what the Digitraffic messages look like: an object whose values are
+ * numbers without exponents, ASCII strings without escapes, and booleans. Anything else, including malformed JSON,
+ * makes the scanner throw {@link UnsupportedPayloadException}, after which the caller is expected to fall back to a
+ * real JSON parser. That way the scanner never has to agree with the JSON parser on the edge cases; it just leaves
+ * them to the parser.
+ * <p>
+ * Instances are not thread safe, and are meant to be used for a single payload.
+ */
+final class FlatJsonScanner {
+
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private final byte[] payload;
+    private int position;
+    private int nameStart;
+    private int nameEnd;
+    private boolean firstField = true;
+
+    FlatJsonScanner(byte[] payload) {
+        this.payload = payload;
+        skipWhitespace();
+        expect('{');
+    }
+
+    /**
+     * Moves to the next field of the object.
+     *
+     * @return false if there are no more fields
+     */
+    boolean nextField() {
+        skipWhitespace();
+        if (peek() == '}') {
+            return false;
+        }
+        if (!firstField) {
+            expect(',');
+            skipWhitespace();
+        }
+        firstField = false;
+        nameStart = position + 1;
+        skipString();
+        nameEnd = position - 1;
+        skipWhitespace();
+        expect(':');
+        skipWhitespace();
+        return true;
+    }
+
+    /**
+     * Returns whether the name of the current field is the given ASCII name.
+     */
+    boolean isField(byte[] name) {
+        return Arrays.equals(payload, nameStart, nameEnd, name, 0, name.length);
+    }
+
+    /**
+     * Reads the value of the current field as a number. The result is exactly what {@link Double#parseDouble} would
+     * return, because the digits are accumulated into an integer that a double can hold exactly, and then divided by
+     * a power of ten that a double can also hold exactly.
+     */
+    double doubleValue() {
+        var negative = skipMinusSign();
+        var digits = readDigits(true);
+        var mantissa = accumulate(0, position - digits, position);
+        if (peekOrEnd() != '.') {
+            rejectExponent();
+            // An integer, which has no negative zero
+            return negative ? -mantissa : mantissa;
+        }
+        position++;
+        var fractionDigits = readDigits(false);
+        mantissa = accumulate(mantissa, position - fractionDigits, position);
+        rejectExponent();
+        if (fractionDigits >= POWERS_OF_TEN.length) {
+            throw UnsupportedPayloadException.INSTANCE;
+        }
+        var value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    long longValue() {
+        var negative = skipMinusSign();
+        var digits = readDigits(true);
+        if (peekOrEnd() == '.') {
+            throw UnsupportedPayloadException.INSTANCE;
+        }
+        rejectExponent();
+        if (digits > 18) {
+            throw UnsupportedPayloadException.INSTANCE;
+        }
+        var value = 0L;
+        for (int i = position - digits; i < position; ++i) {
+            value = value * 10 + (payload[i] - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    int intValue() {
+        var value = longValue();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw UnsupportedPayloadException.INSTANCE;
+        }
+        return (int) value;
+    }
+
+    boolean booleanValue() {
+        if (matches("true")) {
+            return true;
+        } else if (matches("false")) {
+            return false;
+        }
+        throw UnsupportedPayloadException.INSTANCE;
+    }
+
+    String stringValue() {
+        var start = position + 1;
+        skipString();
+        // The bytes are all ASCII, so they can be copied as they are
+        return new String(payload, start, position - 1 - start, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Skips the value of a field that is not needed.
+     */
+    void skipValue() {
+        var c = peek();
+        if (c == '"') {
+            skipString();
+        } else if (c == '-' || (c >= '0' && c <= '9')) {
+            skipNumber();
+        } else if (!matches("true") && !matches("false") && !matches("null")) {
+            throw UnsupportedPayloadException.INSTANCE; // Nested objects and arrays
+        }
+    }
+
+    /**
+     * Skips the string at the current position, including the quotes. The strings that are skipped are checked just
+     * like the ones that are read, so that the scanner never accepts a payload that the parser would reject.
+     */
+    private void skipString() {
+        expect('"');
+        while (peek() != '"') {
+            var c = payload[position];
+            // Escapes, control characters and anything beyond ASCII, whose bytes are negative, are left to the parser
+            if (c == '\\' || c < 0x20) {
+                throw UnsupportedPayloadException.INSTANCE;
+            }
+            position++;
+        }
+        position++;
+    }
+
+    private void skipNumber() {
+        skipMinusSign();
+        readDigits(true);
+        if (peekOrEnd() == '.') {
+            position++;
+            readDigits(false);
+        }
+        rejectExponent();
+    }
+
+    private boolean skipMinusSign() {
+        if (peek() == '-') {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Skips the digits at the current position and returns how many there were. In the integer part of a number, a
+     * leading zero must be the only digit, as in JSON.
+     */
+    private int readDigits(boolean integerPart) {
+        var start = position;
+        while (position < payload.length && payload[position] >= '0' && payload[position] <= '9') {
+            position++;
+        }
+        var digits = position - start;
+        if (digits == 0 || (integerPart && digits > 1 && payload[start] == '0')) {
+            throw UnsupportedPayloadException.INSTANCE;
+        }
+        return digits;
+    }
+
+    private long accumulate(long mantissa, int from, int to) {
+        for (int i = from; i < to; ++i) {
+            mantissa = mantissa * 10 + (payload[i] - '0');
+            if (mantissa > MAX_EXACT_MANTISSA) {
+                throw UnsupportedPayloadException.INSTANCE;
+            }
+        }
+        return mantissa;
+    }
+
+    private void rejectExponent() {
+        var c = peekOrEnd();
+        if (c == 'e' || c == 'E') {
+            throw UnsupportedPayloadException.INSTANCE;
+        }
+    }
+
+    private boolean matches(String literal) {
+        var length = literal.length();
+        if (position + length > payload.length) {
+            return false;
+        }
+        for (int i = 0; i < length; ++i) {
+            if (payload[position + i] != literal.charAt(i)) {
+                return false;
+            }
+        }
+        position += length;
+        return true;
+    }
+
+    private void skipWhitespace() {
+        while (position < payload.length) {
+            var c = payload[position];
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return;
+            }
+            position++;
+        }
+    }
+
+    private void expect(char c) {
+        if (peek() != c) {
+            throw UnsupportedPayloadException.INSTANCE;
+        }
+        position++;
+    }
+
+    private byte peek() {
+        if (position >= payload.length) {
+            throw UnsupportedPayloadException.INSTANCE;
+        }
+        return payload[position];
+    }
+
+    private byte peekOrEnd() {
+        return position < payload.length ? payload[position] : 0;
+    }
+
+    /**
+     * Thrown when the payload is not in the shape the scanner supports. There is only one instance, without a stack
+     * trace, as it is thrown for control flow.
+     */
+    static final class UnsupportedPayloadException extends RuntimeException {
+
+        static final UnsupportedPayloadException INSTANCE = new UnsupportedPayloadException();
+
+        private UnsupportedPayloadException() {
+            super("Unsupported payload", null, false, false);
+        }
+    }
+}
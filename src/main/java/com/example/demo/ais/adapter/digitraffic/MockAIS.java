@@ -7,20 +7,18 @@ import com.example.demo.ais.service.spi.AIS;
 import com.example.demo.ais.util.Result;
 import com.example.demo.ais.util.Subscription;
 
-import java.util.Collection;
-import java.util.Collections;
 import java.util.function.Consumer;
 
 class MockAIS implements AIS {
 
     @Override
-    public Result<Collection<VesselLocation>> loadAllVesselLocations() {
-        return Result.success(Collections.emptyList());
+    public Result<Integer> loadAllVesselLocations(Consumer<VesselLocation> consumer) {
+        return Result.success(0);
     }
 
     @Override
-    public Result<Collection<VesselData>> loadAllVesselData() {
-        return Result.success(Collections.emptyList());
+    public Result<Integer> loadAllVesselData(Consumer<VesselData> consumer) {
+        return Result.success(0);
     }
 
     @Override
@@ -0,0 +1,194 @@
+package com.example.demo.ais.adapter.digitraffic;
+
+import com.example.demo.ais.adapter.digitraffic.FlatJsonScanner.UnsupportedPayloadException;
+import com.example.demo.ais.domain.data.VesselData;
+import com.example.demo.ais.domain.data.VesselLocation;
+import com.example.demo.ais.domain.primitives.*;
+import com.example.demo.ais.util.Result;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Decodes the JSON payloads of the Digitraffic MQTT messages. Instances are thread safe.
+ * <p>
+ * The payloads are first decoded with a {@link FlatJsonScanner}, which only picks the fields that are needed and
+ * creates the domain objects directly. Payloads that the scanner does not support, or that lack any of the needed
+ * fields, are decoded again with Jackson, so the result is always the same as if only Jackson had been used.
+ */
+class VesselMessageDecoder {
+
+    private static final byte[] LAT = ascii("lat");
+    private static final byte[] LON = ascii("lon");
+    private static final byte[] SOG = ascii("sog");
+    private static final byte[] COG = ascii("cog");
+    private static final byte[] HEADING = ascii("heading");
+    private static final byte[] POS_ACC = ascii("posAcc");
+    private static final byte[] TIMESTAMP = ascii("timestamp");
+    private static final byte[] NAME = ascii("name");
+    private static final byte[] CALL_SIGN = ascii("callSign");
+    private static final byte[] TYPE = ascii("type");
+    private static final int ALL_LOCATION_FIELDS = 0b111111;
+    private static final int ALL_METADATA_FIELDS = 0b1111;
+    private final ObjectReader vesselLocationMessageReader;
+    private final ObjectReader vesselMetadataMessageReader;
+
+    VesselMessageDecoder() {
+        var objectMapper = new ObjectMapper();
+        vesselLocationMessageReader = objectMapper.readerFor(VesselLocationMessage.class);
+        vesselMetadataMessageReader = objectMapper.readerFor(VesselMetadataMessage.class);
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    Result<VesselLocation> decodeVesselLocation(MMSI mmsi, byte[] payload, Instant receivedAt) {
+        double lat = 0, lon = 0, sog = 0, cog = 0;
+        int heading = 0;
+        boolean posAcc = false;
+        int fields = 0;
+        try {
+            var scanner = new FlatJsonScanner(payload);
+            while (scanner.nextField()) {
+                if (scanner.isField(LAT)) {
+                    lat = scanner.doubleValue();
+                    fields |= 1;
+                } else if (scanner.isField(LON)) {
+                    lon = scanner.doubleValue();
+                    fields |= 1 << 1;
+                } else if (scanner.isField(SOG)) {
+                    sog = scanner.doubleValue();
+                    fields |= 1 << 2;
+                } else if (scanner.isField(COG)) {
+                    cog = scanner.doubleValue();
+                    fields |= 1 << 3;
+                } else if (scanner.isField(HEADING)) {
+                    heading = scanner.intValue();
+                    fields |= 1 << 4;
+                } else if (scanner.isField(POS_ACC)) {
+                    posAcc = scanner.booleanValue();
+                    fields |= 1 << 5;
+                } else {
+                    scanner.skipValue();
+                }
+            }
+        } catch (UnsupportedPayloadException ex) {
+            return decodeVesselLocationWithJackson(mmsi, payload, receivedAt);
+        }
+        if (fields != ALL_LOCATION_FIELDS) {
+            return decodeVesselLocationWithJackson(mmsi, payload, receivedAt);
+        }
+        try {
+            return Result.success(toVesselLocation(mmsi, receivedAt, lat, lon, sog, cog, heading, posAcc));
+        } catch (Throwable ex) {
+            return Result.failure(ex);
+        }
+    }
+
+    Result<VesselLocation> decodeVesselLocationWithJackson(MMSI mmsi, byte[] payload, Instant receivedAt) {
+        try {
+            VesselLocationMessage vlm = vesselLocationMessageReader.readValue(payload);
+            return Result.success(toVesselLocation(mmsi, receivedAt, vlm.lat(), vlm.lon(), vlm.sog(), vlm.cog(), vlm.heading(), vlm.posAcc()));
+        } catch (Throwable ex) {
+            return Result.failure(ex);
+        }
+    }
+
+    private static VesselLocation toVesselLocation(MMSI mmsi, Instant receivedAt, double lat, double lon, double sog,
+                                                   double cog, int heading, boolean posAcc) {
+        // The timestamp coming from this message might not be the actual timestamp but only the UTC second.
+        // Therefore, we ignore it and use the time the message was received instead.
+        var latitude = new Latitude(lat);
+        var longitude = new Longitude(lon);
+        var position = posAcc ? new AccuratePosition(latitude, longitude) : new InaccuratePosition(latitude, longitude);
+        return new VesselLocation(receivedAt, mmsi, position, Heading.ofDegrees(heading),
+                CourseOverGround.ofDegrees(cog), SpeedOverGround.ofKnots(sog));
+    }
+
+    Result<VesselData> decodeVesselData(MMSI mmsi, byte[] payload) {
+        long timestamp = 0;
+        String name = null, callSign = null;
+        int type = 0;
+        int fields = 0;
+        try {
+            var scanner = new FlatJsonScanner(payload);
+            while (scanner.nextField()) {
+                if (scanner.isField(TIMESTAMP)) {
+                    timestamp = scanner.longValue();
+                    fields |= 1;
+                } else if (scanner.isField(NAME)) {
+                    name = scanner.stringValue();
+                    fields |= 1 << 1;
+                } else if (scanner.isField(CALL_SIGN)) {
+                    callSign = scanner.stringValue();
+                    fields |= 1 << 2;
+                } else if (scanner.isField(TYPE)) {
+                    type = scanner.intValue();
+                    fields |= 1 << 3;
+                } else {
+                    scanner.skipValue();
+                }
+            }
+        } catch (UnsupportedPayloadException ex) {
+            return decodeVesselDataWithJackson(mmsi, payload);
+        }
+        if (fields != ALL_METADATA_FIELDS) {
+            return decodeVesselDataWithJackson(mmsi, payload);
+        }
+        try {
+            return Result.success(toVesselData(mmsi, timestamp, name, callSign, type));
+        } catch (Throwable ex) {
+            return Result.failure(ex);
+        }
+    }
+
+    Result<VesselData> decodeVesselDataWithJackson(MMSI mmsi, byte[] payload) {
+        try {
+            VesselMetadataMessage vmm = vesselMetadataMessageReader.readValue(payload);
+            return Result.success(toVesselData(mmsi, vmm.timestamp(), vmm.name(), vmm.callSign(), vmm.type()));
+        } catch (Throwable ex) {
+            return Result.failure(ex);
+        }
+    }
+
+    private static VesselData toVesselData(MMSI mmsi, long timestamp, String name, String callSign, int type) {
+        return new VesselData(Instant.ofEpochMilli(timestamp), mmsi, new VesselName(name), new CallSign(callSign), ShipType.of(type));
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record VesselLocationMessage(
+            long time,
+            double sog,
+            double cog,
+            int navStat,
+            int rot,
+            boolean posAcc,
+            boolean raim,
+            int heading,
+            double lon,
+            double lat
+    ) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record VesselMetadataMessage(
+            long timestamp,
+            String destination,
+            String name,
+            int draught,
+            long eta,
+            int posType,
+            int refA,
+            int refB,
+            int refC,
+            int refD,
+            String callSign,
+            int imo,
+            int type
+    ) {
+    }
+}
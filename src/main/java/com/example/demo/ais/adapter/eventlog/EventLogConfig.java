@@ -0,0 +1,49 @@
+package com.example.demo.ais.adapter.eventlog;
+
+import com.example.demo.ais.service.spi.AIS;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+
+@Configuration
+class EventLogConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(EventLogConfig.class);
+
+    /**
+     * Not created when replaying, as the writer would then log the replayed events, by default into the directory
+     * being replayed, and its retention would delete the segments that are being read.
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnExpression("${ais.event-log.enabled:false} and '${ais.source:}' != 'replay'")
+    EventLogWriter eventLogWriter(AIS ais, MeterRegistry meterRegistry, Clock clock,
+                                  @Value("${ais.event-log.directory}") String directory,
+                                  @Value("${ais.event-log.records-per-segment:524288}") int recordsPerSegment,
+                                  @Value("${ais.event-log.max-segments:32}") int maxSegments,
+                                  @Value("${ais.event-log.queue-capacity:65536}") int queueCapacity) {
+        log.info("Logging AIS events into {}", directory);
+        var writer = new EventLogWriter(Path.of(directory), recordsPerSegment, maxSegments, queueCapacity, clock,
+                meterRegistry);
+        ais.subscribeToVesselEvents(writer::append); // No need to unsubscribe; the writer and the AIS have the same scope
+        return writer;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "ais.source", havingValue = "replay")
+    public AIS replayAIS(Clock clock,
+                         @Value("${ais.replay.directory:${ais.event-log.directory}}") String directory,
+                         @Value("${ais.replay.speed:1}") double speed,
+                         @Value("${ais.replay.from:}") String from) {
+        log.info("Replaying AIS data from {}", directory);
+        return new ReplayAIS(Path.of(directory), speed, from.isBlank() ? Instant.EPOCH : Instant.parse(from), clock);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.demo.ais.adapter.eventlog;
+
+import com.example.demo.ais.domain.events.VesselEvent;
+import com.example.demo.ais.util.Result;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.function.LongUnaryOperator;
+import java.util.function.ObjLongConsumer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads the events of an event log, oldest segment first. Segments are read through memory mappings.
+ */
+class EventLogReader {
+
+    private final EventLogSegments segments;
+
+    EventLogReader(Path directory) {
+        this.segments = new EventLogSegments(directory);
+    }
+
+    /**
+     * Passes the events logged at or after the given instant to the consumer, together with the time they should be
+     * replayed at. Segments that were followed by another segment before the instant are skipped without being opened.
+     *
+     * @param replayTimeMapper function that is given the time an event was logged at in epoch milliseconds, and
+     *                         returns the time it should be replayed at. The timestamp of the event is moved by as much.
+     * @return the number of events passed to the consumer
+     */
+    Result<Integer> read(Instant from, LongUnaryOperator replayTimeMapper, ObjLongConsumer<VesselEvent> consumer) {
+        requireNonNull(from, "from must not be null");
+        requireNonNull(replayTimeMapper, "replayTimeMapper must not be null");
+        requireNonNull(consumer, "consumer must not be null");
+        try {
+            var fromMillis = from.toEpochMilli();
+            var all = segments.list();
+            var count = 0;
+            for (int i = 0; i < all.size(); ++i) {
+                if (i + 1 < all.size() && EventLogSegments.openedAtMillis(all.get(i + 1)) <= fromMillis) {
+                    continue;
+                }
+                count += readSegment(all.get(i), fromMillis, replayTimeMapper, consumer);
+            }
+            return Result.success(count);
+        } catch (Throwable ex) {
+            return Result.failure(ex);
+        }
+    }
+
+    private int readSegment(Path segment, long fromMillis, LongUnaryOperator replayTimeMapper, ObjLongConsumer<VesselEvent> consumer) throws Exception {
+        try (var channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            var count = 0;
+            for (int offset = 0; EventLogRecord.exists(buffer, offset); offset += EventLogRecord.SIZE) {
+                var loggedAtMillis = EventLogRecord.loggedAtMillis(buffer, offset);
+                if (loggedAtMillis >= fromMillis) {
+                    var replayAtMillis = replayTimeMapper.applyAsLong(loggedAtMillis);
+                    var shiftMillis = replayAtMillis - loggedAtMillis;
+                    consumer.accept(EventLogRecord.read(buffer, offset, timestamp -> timestamp + shiftMillis), replayAtMillis);
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+}
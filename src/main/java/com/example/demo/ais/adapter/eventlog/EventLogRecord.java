@@ -0,0 +1,153 @@
+package com.example.demo.ais.adapter.eventlog;
+
+import com.example.demo.ais.domain.data.VesselData;
+import com.example.demo.ais.domain.data.VesselLocation;
+import com.example.demo.ais.domain.events.VesselDataUpdatedEvent;
+import com.example.demo.ais.domain.events.VesselEvent;
+import com.example.demo.ais.domain.events.VesselLocationOutdatedEvent;
+import com.example.demo.ais.domain.events.VesselLocationUpdatedEvent;
+import com.example.demo.ais.domain.primitives.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Encodes vessel events into fixed size records and back. Every record takes {@link #SIZE} bytes no matter what kind
+ * of event it contains, so the n:th record of a segment can be found without reading the ones before it.
+ * <p>
+ * The first byte of a record tells the type of the event. It is written last, so a reader never sees a record that
+ * is only partly written, and a zero tells that there are no more records in the segment.
+ * <p>
+ * Besides the timestamp of the event, a record holds the time it was logged at. Only the latter is known to increase
+ * through the log, as the timestamps of vessel data events come from the senders.
+ */
+final class EventLogRecord {
+
+    static final int SIZE = 128;
+    private static final byte END_OF_SEGMENT = 0;
+    private static final byte VESSEL_LOCATION_UPDATED = 1;
+    private static final byte VESSEL_DATA_UPDATED = 2;
+    private static final byte VESSEL_LOCATION_OUTDATED = 3;
+    private static final double COORDINATE_SCALE = 1e7;
+    // Offsets of the fields, relative to the beginning of the record
+    private static final int TYPE = 0;
+    private static final int FLAGS = 1;
+    private static final int MMSI_OFFSET = 4;
+    private static final int TIMESTAMP = 8;
+    private static final int LATITUDE = 16;
+    private static final int LONGITUDE = 20;
+    private static final int HEADING = 24;
+    private static final int COG = 26;
+    private static final int SOG = 28;
+    private static final int SHIP_TYPE = 30;
+    private static final int VESSEL_NAME = 32;
+    private static final int VESSEL_NAME_MAX_BYTES = 63;
+    private static final int CALL_SIGN = 96;
+    private static final int CALL_SIGN_MAX_BYTES = 15;
+    private static final int LOGGED_AT = 112;
+    private static final byte ACCURATE_POSITION = 1;
+
+    private EventLogRecord() {
+    }
+
+    /**
+     * Writes the event into the buffer at the given offset, without changing the position of the buffer.
+     */
+    static void write(ByteBuffer buffer, int offset, VesselEvent event, long loggedAtMillis) {
+        buffer.putInt(offset + MMSI_OFFSET, event.mmsi().intValue());
+        buffer.putLong(offset + TIMESTAMP, event.timestamp().toEpochMilli());
+        buffer.putLong(offset + LOGGED_AT, loggedAtMillis);
+        var type = switch (event) {
+            case VesselLocationUpdatedEvent e -> {
+                writeVesselLocation(buffer, offset, e.vesselLocation());
+                yield VESSEL_LOCATION_UPDATED;
+            }
+            case VesselDataUpdatedEvent e -> {
+                writeVesselData(buffer, offset, e.vesselData());
+                yield VESSEL_DATA_UPDATED;
+            }
+            case VesselLocationOutdatedEvent e -> VESSEL_LOCATION_OUTDATED;
+        };
+        buffer.put(offset + TYPE, type);
+    }
+
+    private static void writeVesselLocation(ByteBuffer buffer, int offset, VesselLocation vesselLocation) {
+        var position = vesselLocation.position();
+        buffer.put(offset + FLAGS, position instanceof AccuratePosition ? ACCURATE_POSITION : 0);
+        buffer.putInt(offset + LATITUDE, (int) Math.round(position.latitude().value() * COORDINATE_SCALE));
+        buffer.putInt(offset + LONGITUDE, (int) Math.round(position.longitude().value() * COORDINATE_SCALE));
+        buffer.putShort(offset + HEADING, (short) vesselLocation.heading().degrees());
+        buffer.putShort(offset + COG, (short) vesselLocation.cog().degreeTenths());
+        buffer.putShort(offset + SOG, (short) vesselLocation.sog().knotTenths());
+    }
+
+    private static void writeVesselData(ByteBuffer buffer, int offset, VesselData vesselData) {
+        buffer.putShort(offset + SHIP_TYPE, (short) vesselData.shipType().value());
+        writeString(buffer, offset + VESSEL_NAME, vesselData.vesselName().value(), VESSEL_NAME_MAX_BYTES);
+        writeString(buffer, offset + CALL_SIGN, vesselData.callSign().value(), CALL_SIGN_MAX_BYTES);
+    }
+
+    private static void writeString(ByteBuffer buffer, int offset, String s, int maxBytes) {
+        var bytes = s.getBytes(StandardCharsets.UTF_8);
+        var length = Math.min(bytes.length, maxBytes);
+        // Never cut a multibyte character in half
+        while (length < bytes.length && (bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        buffer.put(offset, (byte) length);
+        buffer.put(offset + 1, bytes, 0, length);
+    }
+
+    /**
+     * Returns whether there is a record at the given offset.
+     */
+    static boolean exists(ByteBuffer buffer, int offset) {
+        return offset + SIZE <= buffer.limit() && buffer.get(offset + TYPE) != END_OF_SEGMENT;
+    }
+
+    static long loggedAtMillis(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + LOGGED_AT);
+    }
+
+    /**
+     * Reads the event at the given offset, passing its timestamp through the given function.
+     */
+    static VesselEvent read(ByteBuffer buffer, int offset, LongUnaryOperator timestampMapper) {
+        var mmsi = MMSI.fromInt(buffer.getInt(offset + MMSI_OFFSET));
+        var timestamp = Instant.ofEpochMilli(timestampMapper.applyAsLong(buffer.getLong(offset + TIMESTAMP)));
+        var type = buffer.get(offset + TYPE);
+        return switch (type) {
+            case VESSEL_LOCATION_UPDATED -> new VesselLocationUpdatedEvent(readVesselLocation(buffer, offset, mmsi, timestamp));
+            case VESSEL_DATA_UPDATED -> new VesselDataUpdatedEvent(readVesselData(buffer, offset, mmsi, timestamp));
+            case VESSEL_LOCATION_OUTDATED -> new VesselLocationOutdatedEvent(mmsi, timestamp);
+            default -> throw new IllegalStateException("Unknown record type " + type);
+        };
+    }
+
+    private static VesselLocation readVesselLocation(ByteBuffer buffer, int offset, MMSI mmsi, Instant timestamp) {
+        var lat = new Latitude(buffer.getInt(offset + LATITUDE) / COORDINATE_SCALE);
+        var lon = new Longitude(buffer.getInt(offset + LONGITUDE) / COORDINATE_SCALE);
+        var position = buffer.get(offset + FLAGS) == ACCURATE_POSITION ? new AccuratePosition(lat, lon) : new InaccuratePosition(lat, lon);
+        var heading = Heading.ofDegrees(buffer.getShort(offset + HEADING));
+        var cogTenths = buffer.getShort(offset + COG);
+        var cog = cogTenths < 0 ? CourseOverGround.UNAVAILABLE : CourseOverGround.ofDegreeTenths(cogTenths);
+        var sogTenths = buffer.getShort(offset + SOG);
+        var sog = sogTenths < 0 ? SpeedOverGround.UNAVAILABLE : SpeedOverGround.ofKnotTenths(sogTenths);
+        return new VesselLocation(timestamp, mmsi, position, heading, cog, sog);
+    }
+
+    private static VesselData readVesselData(ByteBuffer buffer, int offset, MMSI mmsi, Instant timestamp) {
+        var shipType = ShipType.of(buffer.getShort(offset + SHIP_TYPE));
+        var vesselName = new VesselName(readString(buffer, offset + VESSEL_NAME));
+        var callSign = new CallSign(readString(buffer, offset + CALL_SIGN));
+        return new VesselData(timestamp, mmsi, vesselName, callSign, shipType);
+    }
+
+    private static String readString(ByteBuffer buffer, int offset) {
+        var bytes = new byte[buffer.get(offset)];
+        buffer.get(offset + 1, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.demo.ais.adapter.eventlog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The segment files of an event log directory. Every segment is named after the time it was opened, which is also
+ * used for putting the segments in time order.
+ */
+class EventLogSegments {
+
+    private static final Logger log = LoggerFactory.getLogger(EventLogSegments.class);
+    private static final Pattern SEGMENT_NAME = Pattern.compile("events-(\\d{15})(-\\d+)?\\.log");
+    private final Path directory;
+
+    EventLogSegments(Path directory) {
+        this.directory = requireNonNull(directory, "directory must not be null");
+    }
+
+    Path directory() {
+        return directory;
+    }
+
+    /**
+     * Returns a path for a new segment that does not exist yet.
+     */
+    Path newSegment(long openedAtMillis) {
+        var name = "events-%015d".formatted(openedAtMillis);
+        var path = directory.resolve(name + ".log");
+        for (int i = 1; Files.exists(path); ++i) {
+            path = directory.resolve("%s-%d.log".formatted(name, i));
+        }
+        return path;
+    }
+
+    /**
+     * Returns the segments sorted from the oldest to the newest.
+     */
+    List<Path> list() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> SEGMENT_NAME.matcher(file.getFileName().toString()).matches())
+                    .sorted(Comparator.comparingLong(EventLogSegments::openedAtMillis)
+                            .thenComparing(file -> file.getFileName().toString().length())
+                            .thenComparing(file -> file.getFileName().toString()))
+                    .toList();
+        }
+    }
+
+    static long openedAtMillis(Path segment) {
+        var matcher = SEGMENT_NAME.matcher(segment.getFileName().toString());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Not a segment: " + segment);
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    void deleteOldest(int segmentsToKeep) throws IOException {
+        var all = list();
+        for (var segment : all.subList(0, Math.max(0, all.size() - segmentsToKeep))) {
+            log.debug("Deleting event log segment {}", segment);
+            Files.deleteIfExists(segment);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.demo.ais.adapter.eventlog;
+
+import com.example.demo.ais.domain.events.VesselEvent;
+import com.example.demo.ais.util.RingBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Appends vessel events to the event log. The thread publishing the events only puts them into a ring buffer; a
+ * writer thread of its own then copies them into the memory mapped segment. If the writer cannot keep up, events are
+ * dropped rather than slowing down the publisher.
+ * <p>
+ * A new segment is started every time the writer is started and whenever the current segment is full. Segments are
+ * named after the time they are opened, and every record holds the time it was written at. Both are taken from the
+ * clock of the writer rather than from the events, as the timestamps of some events come from the senders and do not
+ * always increase. Once there are more segments than
+ * allowed, the oldest ones are deleted.
+ */
+class EventLogWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(EventLogWriter.class);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private final EventLogSegments segments;
+    private final int recordsPerSegment;
+    private final int maxSegments;
+    private final RingBuffer<VesselEvent> queue;
+    private final Clock clock;
+    private final Counter writtenEvents;
+    private final Counter droppedEvents;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+    private MappedByteBuffer segment; // Only accessed by the writer thread
+    private int recordsInSegment;
+
+    EventLogWriter(Path directory, int recordsPerSegment, int maxSegments, int queueCapacity, Clock clock,
+                   MeterRegistry meterRegistry) {
+        requireNonNull(directory, "directory must not be null");
+        requireNonNull(clock, "clock must not be null");
+        requireNonNull(meterRegistry, "meterRegistry must not be null");
+        if (recordsPerSegment < 1 || (long) recordsPerSegment * EventLogRecord.SIZE > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("recordsPerSegment must be at least 1 and the segment smaller than 2 GB");
+        }
+        if (maxSegments < 1) {
+            throw new IllegalArgumentException("maxSegments must be at least 1");
+        }
+        this.segments = new EventLogSegments(directory);
+        this.recordsPerSegment = recordsPerSegment;
+        this.maxSegments = maxSegments;
+        this.queue = new RingBuffer<>(queueCapacity);
+        this.clock = clock;
+        this.writtenEvents = meterRegistry.counter("ais.event-log.written-events");
+        this.droppedEvents = meterRegistry.counter("ais.event-log.dropped-events");
+        this.writerThread = new Thread(this::run, "ais-event-log-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Queues the event for writing. Never blocks.
+     */
+    void append(VesselEvent event) {
+        if (!queue.offer(event)) {
+            droppedEvents.increment();
+        }
+    }
+
+    private void run() {
+        log.info("Writing event log into {}", segments.directory());
+        while (running || !queue.isEmpty()) {
+            var event = queue.poll();
+            if (event == null) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            try {
+                write(event);
+                writtenEvents.increment();
+            } catch (Throwable ex) {
+                log.error("Error writing event to the event log", ex);
+                droppedEvents.increment();
+                segment = null; // Try again with a new segment
+            }
+        }
+        closeSegment();
+    }
+
+    private void write(VesselEvent event) throws IOException {
+        if (segment == null || recordsInSegment == recordsPerSegment) {
+            closeSegment();
+            openSegment();
+        }
+        EventLogRecord.write(segment, recordsInSegment * EventLogRecord.SIZE, event, clock.millis());
+        recordsInSegment++;
+    }
+
+    private void openSegment() throws IOException {
+        Files.createDirectories(segments.directory());
+        var path = segments.newSegment(clock.millis());
+        try (var channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel has been closed
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) recordsPerSegment * EventLogRecord.SIZE);
+        }
+        recordsInSegment = 0;
+        log.debug("Started event log segment {}", path);
+        segments.deleteOldest(maxSegments);
+    }
+
+    private void closeSegment() {
+        if (segment != null) {
+            segment.force();
+            segment = null;
+        }
+    }
+
+    void shutdown() {
+        running = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
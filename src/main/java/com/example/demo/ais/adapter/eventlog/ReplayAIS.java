@@ -0,0 +1,108 @@
+package com.example.demo.ais.adapter.eventlog;
+
+import com.example.demo.ais.domain.data.VesselData;
+import com.example.demo.ais.domain.data.VesselLocation;
+import com.example.demo.ais.domain.events.VesselEvent;
+import com.example.demo.ais.service.spi.AIS;
+import com.example.demo.ais.util.Result;
+import com.example.demo.ais.util.SubscriberList;
+import com.example.demo.ais.util.Subscription;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * AIS that replays the events of an event log as if they were coming in live. The events are paced by the time they
+ * were logged at, which is moved to the present, and the time between the events is divided by the speed factor. The
+ * timestamps of the events are moved by as much, so an event that was old when it was logged is still as old. The replay starts when the first
+ * subscriber subscribes.
+ * <p>
+ * There are no snapshots to load; the vessels appear as their events are replayed.
+ */
+class ReplayAIS implements AIS {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplayAIS.class);
+    private final EventLogReader reader;
+    private final double speed;
+    private final Instant from;
+    private final Clock clock;
+    private final SubscriberList<Consumer<VesselEvent>> subscribers = new SubscriberList<>();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final Thread replayThread;
+
+    /**
+     * @param speed how many times faster than real time to replay the events, or infinity to replay them as fast as
+     *              possible
+     * @param from  the instant to start the replay from
+     */
+    ReplayAIS(Path directory, double speed, Instant from, Clock clock) {
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("speed must be greater than 0");
+        }
+        this.reader = new EventLogReader(requireNonNull(directory, "directory must not be null"));
+        this.speed = speed;
+        this.from = requireNonNull(from, "from must not be null");
+        this.clock = requireNonNull(clock, "clock must not be null");
+        this.replayThread = new Thread(this::replay, "ais-replay");
+        this.replayThread.setDaemon(true);
+    }
+
+    @PreDestroy
+    void destroy() {
+        replayThread.interrupt();
+    }
+
+    @Override
+    public Result<Integer> loadAllVesselLocations(Consumer<VesselLocation> consumer) {
+        return Result.success(0);
+    }
+
+    @Override
+    public Result<Integer> loadAllVesselData(Consumer<VesselData> consumer) {
+        return Result.success(0);
+    }
+
+    @Override
+    public Subscription subscribeToVesselEvents(Consumer<VesselEvent> subscriber) {
+        var subscription = subscribers.subscribe(subscriber);
+        if (started.compareAndSet(false, true)) {
+            replayThread.start();
+        }
+        return subscription;
+    }
+
+    private void replay() {
+        log.info("Replaying event log from {} at {}x speed", from, speed);
+        var replayStartMillis = clock.millis();
+        var logStartMillis = new long[]{Long.MIN_VALUE};
+        reader.read(from, loggedAtMillis -> {
+            if (logStartMillis[0] == Long.MIN_VALUE) {
+                logStartMillis[0] = loggedAtMillis;
+            }
+            return replayStartMillis + (long) ((loggedAtMillis - logStartMillis[0]) / speed);
+        }, this::publishWhenDue)
+                .doOnError(reason -> log.error("Error replaying event log: {}", reason))
+                .doIfSuccessful(count -> log.info("Replayed {} events", count));
+    }
+
+    private void publishWhenDue(VesselEvent event, long dueMillis) {
+        var delay = dueMillis - clock.millis();
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Replay interrupted", ex);
+            }
+        }
+        subscribers.forEach(Consumer::accept, event);
+    }
+}
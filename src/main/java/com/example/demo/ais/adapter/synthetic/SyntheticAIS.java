@@ -0,0 +1,289 @@
+package com.example.demo.ais.adapter.synthetic;
+
+import com.example.demo.ais.domain.data.VesselData;
+import com.example.demo.ais.domain.data.VesselLocation;
+import com.example.demo.ais.domain.events.VesselDataUpdatedEvent;
+import com.example.demo.ais.domain.events.VesselEvent;
+import com.example.demo.ais.domain.events.VesselLocationUpdatedEvent;
+import com.example.demo.ais.domain.primitives.*;
+import com.example.demo.ais.service.spi.AIS;
+import com.example.demo.ais.util.Result;
+import com.example.demo.ais.util.SubscriberList;
+import com.example.demo.ais.util.Subscription;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * AIS that makes up its vessels, for load testing without Digitraffic. The vessels sail around the Baltic Sea,
+ * turning a little now and then and bouncing off the edges of the area, while some of them lie at anchor.
+ * <p>
+ * The vessels are divided between a number of generator threads, each of which sends messages about its own vessels
+ * at its share of the message rate. A part of the messages are metadata updates, and the feed can be made to go
+ * silent periodically to simulate outages. The same seed always produces the same vessels, and the same sequence of
+ * turns and metadata changes per thread; only the distances sailed depend on the wall clock.
+ */
+class SyntheticAIS implements AIS {
+
+    private static final Logger log = LoggerFactory.getLogger(SyntheticAIS.class);
+    private static final double SOUTH = 54;
+    private static final double NORTH = 66;
+    private static final double WEST = 10;
+    private static final double EAST = 30;
+    private static final int FIRST_MMSI = 200_000_000;
+    private static final int[] SHIP_TYPES = {30, 36, 37, 52, 60, 70, 79, 80};
+    private static final double ANCHORED_SHARE = 0.3;
+    private static final double MAX_SPEED = 25; // Knots
+    private static final double MAX_TURN = 10; // Degrees per message
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long MAX_BACKLOG_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private final Settings settings;
+    private final Clock clock;
+    private final Counter generatedEvents;
+    private final SubscriberList<Consumer<VesselEvent>> subscribers = new SubscriberList<>();
+    private final SimulatedVessel[] vessels;
+    private final List<Thread> generatorThreads = new ArrayList<>();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile boolean running = true;
+
+    /**
+     * @param vesselCount       the number of simulated vessels
+     * @param messagesPerSecond the total number of messages per second over all vessels
+     * @param metadataChurn     the share of the messages that are metadata updates, between 0 and 1
+     * @param outageInterval    the time between the starts of two outages, or zero for no outages
+     * @param outageDuration    how long an outage lasts
+     * @param threads           the number of generator threads
+     * @param seed              the seed of the random number generators
+     */
+    record Settings(
+            int vesselCount,
+            int messagesPerSecond,
+            double metadataChurn,
+            Duration outageInterval,
+            Duration outageDuration,
+            int threads,
+            long seed
+    ) {
+        Settings {
+            requireNonNull(outageInterval, "outageInterval must not be null");
+            requireNonNull(outageDuration, "outageDuration must not be null");
+            if (vesselCount < 1 || vesselCount > 99_999_999) {
+                throw new IllegalArgumentException("vesselCount must be between 1 and 99999999");
+            }
+            if (messagesPerSecond < 0) {
+                throw new IllegalArgumentException("messagesPerSecond must not be negative");
+            }
+            if (metadataChurn < 0 || metadataChurn > 1) {
+                throw new IllegalArgumentException("metadataChurn must be between 0 and 1");
+            }
+            if (threads < 1 || threads > vesselCount) {
+                throw new IllegalArgumentException("threads must be between 1 and vesselCount");
+            }
+        }
+    }
+
+    SyntheticAIS(Settings settings, Clock clock, MeterRegistry meterRegistry) {
+        this.settings = requireNonNull(settings, "settings must not be null");
+        this.clock = requireNonNull(clock, "clock must not be null");
+        this.generatedEvents = meterRegistry.counter("ais.synthetic.generated-events");
+        var random = new SplittableRandom(settings.seed());
+        this.vessels = new SimulatedVessel[settings.vesselCount()];
+        var now = clock.millis();
+        for (int i = 0; i < vessels.length; ++i) {
+            vessels[i] = new SimulatedVessel(MMSI.fromInt(FIRST_MMSI + i), random, now);
+        }
+    }
+
+    @PreDestroy
+    void destroy() {
+        running = false;
+        generatorThreads.forEach(LockSupport::unpark);
+    }
+
+    @Override
+    public Result<Integer> loadAllVesselLocations(Consumer<VesselLocation> consumer) {
+        var now = clock.millis();
+        for (var vessel : vessels) {
+            synchronized (vessel) {
+                consumer.accept(vessel.location(now));
+            }
+        }
+        return Result.success(vessels.length);
+    }
+
+    @Override
+    public Result<Integer> loadAllVesselData(Consumer<VesselData> consumer) {
+        var now = clock.millis();
+        for (var vessel : vessels) {
+            synchronized (vessel) {
+                consumer.accept(vessel.data(now));
+            }
+        }
+        return Result.success(vessels.length);
+    }
+
+    @Override
+    public Subscription subscribeToVesselEvents(Consumer<VesselEvent> subscriber) {
+        var subscription = subscribers.subscribe(subscriber);
+        if (started.compareAndSet(false, true)) {
+            startGenerators();
+        }
+        return subscription;
+    }
+
+    private void startGenerators() {
+        log.info("Simulating {} vessels sending {} messages per second on {} threads",
+                vessels.length, settings.messagesPerSecond(), settings.threads());
+        for (int i = 0; i < settings.threads(); ++i) {
+            var generator = new Generator(i);
+            var thread = new Thread(generator, "ais-synthetic-" + i);
+            thread.setDaemon(true);
+            generatorThreads.add(thread);
+            thread.start();
+        }
+    }
+
+    private boolean isInOutage(long nowMillis) {
+        var interval = settings.outageInterval().toMillis();
+        return interval > 0 && Math.floorMod(nowMillis, interval) < settings.outageDuration().toMillis();
+    }
+
+    private class Generator implements Runnable {
+        private final int index;
+        private final SplittableRandom random;
+        private final double messagesPerNano;
+        private int nextVessel;
+
+        Generator(int index) {
+            this.index = index;
+            this.random = new SplittableRandom(settings.seed() + 1 + index);
+            this.messagesPerNano = (double) settings.messagesPerSecond() / settings.threads() / TimeUnit.SECONDS.toNanos(1);
+            this.nextVessel = index;
+        }
+
+        @Override
+        public void run() {
+            var previousTick = System.nanoTime();
+            var messagesDue = 0.0;
+            var wasInOutage = false;
+            while (running) {
+                LockSupport.parkNanos(TICK_NANOS);
+                var tick = System.nanoTime();
+                // If the subscribers cannot keep up, give up on the backlog rather than let it grow forever
+                messagesDue = Math.min(messagesDue + (tick - previousTick) * messagesPerNano, MAX_BACKLOG_NANOS * messagesPerNano);
+                previousTick = tick;
+                var now = clock.millis();
+                var inOutage = isInOutage(now);
+                if (inOutage != wasInOutage) {
+                    log.info(inOutage ? "Simulated outage started" : "Simulated outage ended");
+                    wasInOutage = inOutage;
+                }
+                for (; messagesDue >= 1; messagesDue--) {
+                    var event = nextEvent(now);
+                    // Messages sent during an outage are lost, just like with the real thing
+                    if (!inOutage) {
+                        subscribers.forEach(Consumer::accept, event);
+                        generatedEvents.increment();
+                    }
+                }
+            }
+        }
+
+        private VesselEvent nextEvent(long nowMillis) {
+            var vessel = vessels[nextVessel];
+            nextVessel += settings.threads();
+            if (nextVessel >= vessels.length) {
+                nextVessel = index;
+            }
+            synchronized (vessel) {
+                if (random.nextDouble() < settings.metadataChurn()) {
+                    vessel.changeMetadata(random);
+                    return new VesselDataUpdatedEvent(vessel.data(nowMillis));
+                } else {
+                    vessel.move(random, nowMillis);
+                    return new VesselLocationUpdatedEvent(vessel.location(nowMillis));
+                }
+            }
+        }
+    }
+
+    /**
+     * A vessel of the simulation. Guarded by its own monitor, since the snapshots can be loaded while the generators
+     * are running.
+     */
+    private static class SimulatedVessel {
+        private final MMSI mmsi;
+        private final boolean anchored;
+        private final int shipType;
+        private double latitude;
+        private double longitude;
+        private double course; // Degrees
+        private double speed; // Knots
+        private long movedAtMillis;
+        private int nameVersion;
+
+        SimulatedVessel(MMSI mmsi, SplittableRandom random, long nowMillis) {
+            this.mmsi = mmsi;
+            this.anchored = random.nextDouble() < ANCHORED_SHARE;
+            this.shipType = SHIP_TYPES[random.nextInt(SHIP_TYPES.length)];
+            this.latitude = random.nextDouble(SOUTH, NORTH);
+            this.longitude = random.nextDouble(WEST, EAST);
+            this.course = random.nextDouble(360);
+            this.speed = anchored ? 0 : random.nextDouble(1, MAX_SPEED);
+            this.movedAtMillis = nowMillis;
+        }
+
+        void move(SplittableRandom random, long nowMillis) {
+            if (!anchored) {
+                var hours = (nowMillis - movedAtMillis) / 3_600_000.0;
+                var distance = speed * hours / 60; // Nautical miles to degrees of latitude
+                latitude += distance * Math.cos(Math.toRadians(course));
+                longitude += distance * Math.sin(Math.toRadians(course)) / Math.cos(Math.toRadians(latitude));
+                if (latitude < SOUTH || latitude > NORTH) {
+                    latitude = Math.max(SOUTH, Math.min(NORTH, latitude));
+                    course = 180 - course;
+                }
+                if (longitude < WEST || longitude > EAST) {
+                    longitude = Math.max(WEST, Math.min(EAST, longitude));
+                    course = -course;
+                }
+                course = Math.floorMod((long) ((course + random.nextDouble(-MAX_TURN, MAX_TURN)) * 10), 3600) / 10.0;
+            }
+            movedAtMillis = nowMillis;
+        }
+
+        void changeMetadata(SplittableRandom random) {
+            nameVersion = random.nextInt(10);
+        }
+
+        VesselLocation location(long nowMillis) {
+            var timestamp = Instant.ofEpochMilli(nowMillis);
+            var position = new AccuratePosition(new Latitude(latitude), new Longitude(longitude));
+            var heading = anchored ? Heading.UNAVAILABLE : Heading.ofDegrees((int) course);
+            return new VesselLocation(timestamp, mmsi, position, heading,
+                    CourseOverGround.ofDegrees(course), SpeedOverGround.ofKnots(speed));
+        }
+
+        VesselData data(long nowMillis) {
+            var timestamp = Instant.ofEpochMilli(nowMillis);
+            var vesselName = new VesselName("SYNTHETIC %d%s".formatted(mmsi.intValue() - FIRST_MMSI, nameVersion == 0 ? "" : " " + nameVersion));
+            var callSign = new CallSign("SY" + Integer.toString(mmsi.intValue() - FIRST_MMSI, 36));
+            return new VesselData(timestamp, mmsi, vesselName, callSign, ShipType.of(shipType));
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.demo.ais.adapter.synthetic;
+
+import com.example.demo.ais.service.spi.AIS;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+import java.time.Duration;
+
+@Configuration
+class SyntheticAISConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(SyntheticAISConfig.class);
+
+    @Bean
+    @ConditionalOnProperty(name = "ais.source", havingValue = "synthetic")
+    public AIS syntheticAIS(Clock clock, MeterRegistry meterRegistry,
+                            @Value("${ais.synthetic.vessels:20000}") int vessels,
+                            @Value("${ais.synthetic.messages-per-second:10000}") int messagesPerSecond,
+                            @Value("${ais.synthetic.metadata-churn:0.02}") double metadataChurn,
+                            @Value("${ais.synthetic.outage-interval:0s}") Duration outageInterval,
+                            @Value("${ais.synthetic.outage-duration:0s}") Duration outageDuration,
+                            @Value("${ais.synthetic.threads:2}") int threads,
+                            @Value("${ais.synthetic.seed:42}") long seed) {
+        log.warn("Using synthetic AIS data");
+        var settings = new SyntheticAIS.Settings(vessels, messagesPerSecond, metadataChurn, outageInterval,
+                outageDuration, threads, seed);
+        return new SyntheticAIS(settings, clock, meterRegistry);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.demo.ais.adapter.ui;
+
+import com.example.demo.ais.domain.primitives.ShipType;
+import com.vaadin.flow.component.map.configuration.style.Icon;
+
+import java.util.HashMap;
+
+/**
+ * Icons of the cluster markers. The colour of the icon tells the dominant ship type of the cluster, and the size of
+ * the icon grows with the number of vessels in the cluster.
+ */
+final class ClusterMarkerIcons {
+
+    private static final int SIZE_CLASSES = 5;
+    private static final HashMap<String, Icon[]> CLUSTER_ICONS = new HashMap<>();
+
+    static {
+        for (var color : new String[]{"gray", "orange", "gold", "purple", "blue", "green", "red", "darkgray"}) {
+            var icons = new Icon[SIZE_CLASSES];
+            for (int i = 0; i < SIZE_CLASSES; ++i) {
+                icons[i] = createIcon(color, 0.6 + 0.3 * i);
+            }
+            CLUSTER_ICONS.put(color, icons);
+        }
+    }
+
+    private static Icon createIcon(String color, double scale) {
+        var iconOptions = new Icon.Options();
+        iconOptions.setSrc("markers/cluster.svg");
+        iconOptions.setColor(color);
+        iconOptions.setScale(scale);
+        return new Icon(iconOptions);
+    }
+
+    private ClusterMarkerIcons() {
+    }
+
+    public static Icon getClusterIcon(ShipType dominantShipType, int count) {
+        // 1-9 vessels use the smallest icon, 10-99 the next one and so on
+        var sizeClass = Math.min(SIZE_CLASSES - 1, (int) Math.log10(Math.max(1, count)));
+        return CLUSTER_ICONS.get(colorOf(dominantShipType))[sizeClass];
+    }
+
+    private static String colorOf(ShipType shipType) {
+        return switch (shipType.value() / 10) {
+            case 3 -> "orange"; // Fishing, towing, sailing, pleasure craft etc.
+            case 4 -> "gold"; // High speed craft
+            case 5 -> "purple"; // Pilots, tugs, SAR etc.
+            case 6 -> "blue"; // Passenger
+            case 7 -> "green"; // Cargo
+            case 8 -> "red"; // Tanker
+            case 9 -> "darkgray"; // Other
+            default -> "gray";
+        };
+    }
+}
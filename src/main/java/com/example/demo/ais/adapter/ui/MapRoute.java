@@ -1,38 +1,54 @@
 package com.example.demo.ais.adapter.ui;
 
+import com.example.demo.ais.domain.data.VesselLocation;
 import com.example.demo.ais.domain.events.VesselEvent;
 import com.example.demo.ais.domain.events.VesselLocationOutdatedEvent;
 import com.example.demo.ais.domain.events.VesselLocationUpdatedEvent;
 import com.example.demo.ais.domain.primitives.Envelope;
 import com.example.demo.ais.domain.primitives.MMSI;
 import com.example.demo.ais.service.api.VesselService;
-import com.example.demo.ais.util.Subscription;
+import com.example.demo.ais.service.api.ViewportSubscription;
+import com.example.demo.ais.util.PipelineLatency;
 import com.vaadin.flow.component.AttachEvent;
 import com.vaadin.flow.component.DetachEvent;
 import com.vaadin.flow.component.combobox.ComboBox;
 import com.vaadin.flow.component.dialog.Dialog;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.router.Route;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.time.ZoneId;
 import java.time.format.TextStyle;
+import java.util.ArrayList;
 import java.util.List;
 
 @Route("")
 public class MapRoute extends VerticalLayout {
 
+    private static final Logger log = LoggerFactory.getLogger(MapRoute.class);
     private static final int MAX_VESSELS_ON_MAP = 15000;
+    private static final Duration CLUSTER_REFRESH_INTERVAL = Duration.ofSeconds(10);
     private final VesselService vesselService;
     private final VesselDetailsPopupFactory vesselDetailsPopupFactory;
     private final ComboBox<ZoneId> timeZone;
     private final VesselMap map;
     private final UserPreferences userPreferences;
-    private Subscription vesselEventsSubscription;
+    private final PipelineLatency uiAccessLatency;
+    private ViewportSubscription vesselEventsSubscription;
+    private long clustersRefreshedAt; // System.nanoTime()
 
-    MapRoute(VesselService vesselService, VesselDetailsPopupFactory vesselDetailsPopupFactory, UserPreferences userPreferences) {
+    MapRoute(VesselService vesselService, VesselDetailsPopupFactory vesselDetailsPopupFactory, UserPreferences userPreferences,
+             Clock clock, MeterRegistry meterRegistry,
+             @Value("${ais.ui.vessel-rendering:MARKERS}") VesselMap.VesselRendering vesselRendering) {
         this.vesselService = vesselService;
         this.vesselDetailsPopupFactory = vesselDetailsPopupFactory;
         this.userPreferences = userPreferences;
+        this.uiAccessLatency = new PipelineLatency("ui-access", clock, meterRegistry);
 
         timeZone = new ComboBox<>();
         timeZone.setItemLabelGenerator(z -> z.getDisplayName(TextStyle.FULL, getLocale()));
@@ -40,7 +56,7 @@ public class MapRoute extends VerticalLayout {
         timeZone.addValueChangeListener(v -> userPreferences.setTimeZone(v.getValue()));
         timeZone.setValue(userPreferences.timeZone());
 
-        map = new VesselMap();
+        map = new VesselMap(vesselRendering);
         map.setSizeFull();
         map.setState(userPreferences.mapState());
         add(timeZone);
@@ -51,13 +67,53 @@ public class MapRoute extends VerticalLayout {
     }
 
     private void onVesselEvents(List<VesselEvent> vesselEvents) {
-        getUI().ifPresent(ui -> ui.access(() -> vesselEvents.forEach(event -> {
-            if (event instanceof VesselLocationOutdatedEvent e) {
-                map.removeVessel(e.mmsi());
-            } else if (event instanceof VesselLocationUpdatedEvent e) {
-                map.addOrUpdateVessel(e.vesselLocation());
+        getUI().ifPresent(ui -> ui.access(() -> {
+            if (map.isClustering()) {
+                // Clusters change slowly, so there is no point in recomputing them on every event
+                if (System.nanoTime() - clustersRefreshedAt > CLUSTER_REFRESH_INTERVAL.toNanos()) {
+                    refreshClusters(map.envelope());
+                }
+                return;
             }
-        })));
+            var updatedVessels = new ArrayList<VesselLocation>();
+            var removedVessels = new ArrayList<MMSI>();
+            vesselEvents.forEach(event -> {
+                if (event instanceof VesselLocationOutdatedEvent e) {
+                    removedVessels.add(e.mmsi());
+                } else if (event instanceof VesselLocationUpdatedEvent e) {
+                    updatedVessels.add(e.vesselLocation());
+                }
+            });
+            map.updateVessels(updatedVessels, removedVessels);
+            updatedVessels.forEach(vesselLocation -> uiAccessLatency.recordSince(vesselLocation.timestamp()));
+        }));
+    }
+
+    private void refreshClusters(Envelope envelope) {
+        map.showClusters(vesselService.vesselClusters(envelope, map.clusterCellSizeInDegrees()));
+        clustersRefreshedAt = System.nanoTime();
+    }
+
+    private void onVesselEventsDisconnected() {
+        getUI().ifPresent(ui -> ui.access(() -> {
+            if (!isAttached()) {
+                return;
+            }
+            // Events have been lost, so subscribe again and reload what is on the map
+            log.info("Vessel event subscription was disconnected, subscribing again");
+            subscribeToVesselEvents();
+            var envelope = map.envelope();
+            if (map.isClustering()) {
+                refreshClusters(envelope);
+            } else {
+                map.showVessels(vesselService.vesselLocations(envelope, MAX_VESSELS_ON_MAP));
+            }
+        }));
+    }
+
+    private void subscribeToVesselEvents() {
+        vesselEventsSubscription = vesselService.subscribeToVesselEvents(map.envelope(), this::onVesselEvents,
+                this::onVesselEventsDisconnected);
     }
 
     private void onVesselClicked(MMSI mmsi) {
@@ -65,13 +121,20 @@ public class MapRoute extends VerticalLayout {
     }
 
     private void onEnvelopeChanged(Envelope envelope) {
-        map.addOrUpdateVessels(vesselService.vesselLocations(envelope, MAX_VESSELS_ON_MAP));
+        if (vesselEventsSubscription != null) {
+            vesselEventsSubscription.setEnvelope(envelope);
+        }
+        if (map.isClustering()) {
+            refreshClusters(envelope);
+        } else {
+            map.addOrUpdateVessels(vesselService.vesselLocations(envelope, MAX_VESSELS_ON_MAP));
+        }
         userPreferences.setMapState(map.state());
     }
 
     @Override
     protected void onAttach(AttachEvent attachEvent) {
-        vesselEventsSubscription = vesselService.subscribeToVesselEvents(this::onVesselEvents);
+        subscribeToVesselEvents();
     }
 
     @Override
@@ -0,0 +1,258 @@
+package com.example.demo.ais.adapter.ui;
+
+import com.example.demo.ais.domain.data.VesselLocation;
+import com.example.demo.ais.domain.primitives.Envelope;
+import com.example.demo.ais.domain.primitives.MMSI;
+import com.vaadin.flow.component.*;
+import com.vaadin.flow.component.dependency.JsModule;
+import com.vaadin.flow.shared.Registration;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Shows the vessels of a {@link com.vaadin.flow.component.map.Map} on a single canvas in the browser, instead of
+ * having a {@link com.vaadin.flow.component.map.configuration.feature.MarkerFeature} per vessel. Every vessel gets a
+ * slot, and the layer only remembers what it last sent for each slot. There are {@value #MAX_SLOTS} slots, as many as a
+ * u16 can address; vessels that do not get a slot are not shown. All changes made while handling the same request
+ * are sent to the browser as one binary frame, which is base64 encoded because JavaScript calls only take JSON values.
+ * <p>
+ * A frame is little endian, and starts with a byte of frame flags, followed by records of the form:
+ * <pre>
+ * u16 slot
+ * u8  record flags                 REMOVED, ABSOLUTE, MOVING
+ * u16 heading                      degrees, 511 if not available; not present if REMOVED
+ * i32 latitude, i32 longitude      10<sup>-5</sup> degrees, if ABSOLUTE
+ * i16 latitude, i16 longitude      change since the previous record of the slot, otherwise
+ * </pre>
+ * The client side is in {@code frontend/vessel-canvas-layer.js}, and expects the layer to be a child of the map.
+ */
+@Tag("vessel-canvas-layer")
+@JsModule("./vessel-canvas-layer.js")
+class VesselCanvasLayer extends Component {
+
+    private static final double COORDINATE_SCALE = 1e5;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_SLOTS = 65536;
+    private static final int INITIAL_FRAME_SIZE = 1024;
+    private static final int MAX_RECORD_SIZE = 13;
+    // Frame flags
+    private static final byte RESET = 1;
+    // Record flags
+    private static final int REMOVED = 1;
+    private static final int ABSOLUTE = 2;
+    private static final int MOVING = 4;
+    private final HashMap<MMSI, Integer> slots = new HashMap<>();
+    // What was last sent, indexed by slot. The MMSI of a free slot is null.
+    private MMSI[] mmsis = new MMSI[INITIAL_CAPACITY];
+    private int[] sentLatitudes = new int[INITIAL_CAPACITY];
+    private int[] sentLongitudes = new int[INITIAL_CAPACITY];
+    private short[] sentHeadings = new short[INITIAL_CAPACITY];
+    private byte[] sentFlags = new byte[INITIAL_CAPACITY];
+    private int usedSlots; // Slots above this have never been used
+    private int[] freeSlots = new int[16];
+    private int freeSlotCount;
+    private ByteBuffer frame; // null if there is nothing to send
+    private double minMoveInDegrees;
+    private boolean detached;
+
+    /**
+     * Sets the smallest move that is visible at the current zoom level. Smaller moves are not sent to the browser.
+     */
+    public void setMinMoveInDegrees(double minMoveInDegrees) {
+        this.minMoveInDegrees = minMoveInDegrees;
+    }
+
+    /**
+     * Adds the vessel to the layer, or updates it if it has already been added. The vessel is ignored if all the slots
+     * are taken.
+     */
+    public void addOrUpdate(VesselLocation vesselLocation) {
+        requireNonNull(vesselLocation, "vesselLocation must not be null");
+        var position = vesselLocation.position();
+        var lat = (int) Math.round(position.latitude().value() * COORDINATE_SCALE);
+        var lon = (int) Math.round(position.longitude().value() * COORDINATE_SCALE);
+        var heading = vesselLocation.heading().degrees();
+        var flags = vesselLocation.sog().knotTenths() == 0 ? 0 : MOVING;
+        var slot = slots.get(vesselLocation.mmsi());
+        if (slot == null) {
+            slot = allocateSlot(vesselLocation.mmsi());
+            if (slot < 0) {
+                return;
+            }
+            writeRecord(slot, flags | ABSOLUTE, heading, lat, lon);
+        } else if (heading != sentHeadings[slot] || flags != sentFlags[slot] || hasMovedVisibly(slot, lat, lon)) {
+            var latChange = lat - sentLatitudes[slot];
+            var lonChange = lon - sentLongitudes[slot];
+            var fitsInShort = latChange == (short) latChange && lonChange == (short) lonChange;
+            writeRecord(slot, fitsInShort ? flags : flags | ABSOLUTE, heading, lat, lon);
+        }
+    }
+
+    private boolean hasMovedVisibly(int slot, int lat, int lon) {
+        // In the Mercator projection, a degree of latitude covers more pixels the further away from the equator
+        var minLatitudeMove = minMoveInDegrees * Math.cos(Math.toRadians(sentLatitudes[slot] / COORDINATE_SCALE));
+        return Math.abs(lon - sentLongitudes[slot]) >= minMoveInDegrees * COORDINATE_SCALE
+                || Math.abs(lat - sentLatitudes[slot]) >= minLatitudeMove * COORDINATE_SCALE;
+    }
+
+    public void remove(MMSI mmsi) {
+        var slot = slots.remove(mmsi);
+        if (slot != null) {
+            mmsis[slot] = null;
+            if (freeSlotCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+            }
+            freeSlots[freeSlotCount++] = slot;
+            frame().putShort((short) slot.intValue()).put((byte) REMOVED);
+        }
+    }
+
+    /**
+     * Removes the vessels whose last sent position is outside the envelope.
+     */
+    public void removeOutside(Envelope envelope) {
+        requireNonNull(envelope, "envelope must not be null");
+        var south = envelope.south().value() * COORDINATE_SCALE;
+        var north = envelope.north().value() * COORDINATE_SCALE;
+        var west = envelope.west().value() * COORDINATE_SCALE;
+        var east = envelope.east().value() * COORDINATE_SCALE;
+        for (int slot = 0; slot < usedSlots; ++slot) {
+            var lat = sentLatitudes[slot];
+            var lon = sentLongitudes[slot];
+            if (mmsis[slot] != null && (lat < south || lat > north || lon < west || lon > east)) {
+                remove(mmsis[slot]);
+            }
+        }
+    }
+
+    public void clear() {
+        if (usedSlots == 0) {
+            return; // Nothing has been sent since the last reset
+        }
+        slots.clear();
+        Arrays.fill(mmsis, 0, usedSlots, null);
+        usedSlots = 0;
+        freeSlotCount = 0;
+        // Nothing that is pending matters anymore
+        frame = null;
+        frame().put(0, RESET);
+    }
+
+    public Registration addVesselClickListener(Consumer<MMSI> listener) {
+        requireNonNull(listener, "listener must not be null");
+        return addListener(VesselClickEvent.class, event -> {
+            var slot = event.slot();
+            if (slot >= 0 && slot < usedSlots && mmsis[slot] != null) {
+                listener.accept(mmsis[slot]);
+            }
+        });
+    }
+
+    @Override
+    protected void onAttach(AttachEvent attachEvent) {
+        if (detached) {
+            // The browser has a new element that has not seen anything yet
+            detached = false;
+            frame = null;
+            frame().put(0, RESET);
+            for (int slot = 0; slot < usedSlots; ++slot) {
+                if (mmsis[slot] != null) {
+                    writeRecord(slot, sentFlags[slot] | ABSOLUTE, sentHeadings[slot], sentLatitudes[slot],
+                            sentLongitudes[slot]);
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void onDetach(DetachEvent detachEvent) {
+        detached = true;
+        frame = null;
+    }
+
+    /**
+     * Returns a free slot for the vessel, or -1 if all the slots are taken.
+     */
+    private int allocateSlot(MMSI mmsi) {
+        int slot;
+        if (freeSlotCount > 0) {
+            slot = freeSlots[--freeSlotCount];
+        } else if (usedSlots == MAX_SLOTS) {
+            return -1;
+        } else {
+            if (usedSlots == mmsis.length) {
+                var capacity = Math.min(mmsis.length * 2, MAX_SLOTS);
+                mmsis = Arrays.copyOf(mmsis, capacity);
+                sentLatitudes = Arrays.copyOf(sentLatitudes, capacity);
+                sentLongitudes = Arrays.copyOf(sentLongitudes, capacity);
+                sentHeadings = Arrays.copyOf(sentHeadings, capacity);
+                sentFlags = Arrays.copyOf(sentFlags, capacity);
+            }
+            slot = usedSlots++;
+        }
+        mmsis[slot] = mmsi;
+        slots.put(mmsi, slot);
+        return slot;
+    }
+
+    private void writeRecord(int slot, int flags, int heading, int lat, int lon) {
+        var buffer = frame().putShort((short) slot).put((byte) flags).putShort((short) heading);
+        if ((flags & ABSOLUTE) != 0) {
+            buffer.putInt(lat).putInt(lon);
+        } else {
+            buffer.putShort((short) (lat - sentLatitudes[slot])).putShort((short) (lon - sentLongitudes[slot]));
+        }
+        sentLatitudes[slot] = lat;
+        sentLongitudes[slot] = lon;
+        sentHeadings[slot] = (short) heading;
+        sentFlags[slot] = (byte) (flags & MOVING);
+    }
+
+    /**
+     * Returns the frame to write the next record to, with room for at least one record. The first record written
+     * after a frame has been sent starts a new frame, and schedules it to be sent with the response.
+     */
+    private ByteBuffer frame() {
+        if (frame == null) {
+            frame = ByteBuffer.allocate(INITIAL_FRAME_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            frame.put((byte) 0);
+            getElement().getNode().runWhenAttached(ui -> ui.beforeClientResponse(this, context -> sendFrame()));
+        } else if (frame.remaining() < MAX_RECORD_SIZE) {
+            var position = frame.position();
+            frame = ByteBuffer.wrap(Arrays.copyOf(frame.array(), frame.capacity() * 2)).order(ByteOrder.LITTLE_ENDIAN)
+                    .position(position);
+        }
+        return frame;
+    }
+
+    private void sendFrame() {
+        if (frame != null) {
+            var payload = Base64.getEncoder().encodeToString(Arrays.copyOf(frame.array(), frame.position()));
+            frame = null;
+            getElement().callJsFunction("applyFrame", payload);
+        }
+    }
+
+    @DomEvent("vessel-click")
+    public static class VesselClickEvent extends ComponentEvent<VesselCanvasLayer> {
+
+        private final int slot;
+
+        public VesselClickEvent(VesselCanvasLayer source, boolean fromClient,
+                                @EventData("event.detail.slot") int slot) {
+            super(source, fromClient);
+            this.slot = slot;
+        }
+
+        public int slot() {
+            return slot;
+        }
+    }
+}
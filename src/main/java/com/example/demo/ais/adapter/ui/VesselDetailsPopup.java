@@ -1,18 +1,26 @@
 package com.example.demo.ais.adapter.ui;
 
 import com.example.demo.ais.service.dpo.VesselDetails;
+import com.example.demo.ais.service.dpo.VesselTrack;
+import com.vaadin.flow.component.Html;
 import com.vaadin.flow.component.dialog.Dialog;
+import com.vaadin.flow.component.html.Div;
 import com.vaadin.flow.component.html.ListItem;
 import com.vaadin.flow.component.html.Span;
 import com.vaadin.flow.component.html.UnorderedList;
 
+import jakarta.annotation.Nullable;
+
 import java.time.ZoneId;
+import java.util.Locale;
+import java.util.stream.Collectors;
 
 public class VesselDetailsPopup extends Dialog {
 
+    private static final int TRACK_SIZE = 200; // Pixels
     private final UnorderedList attributes = new UnorderedList();
 
-    VesselDetailsPopup(ZoneId timeZone, VesselDetails vesselDetails) {
+    VesselDetailsPopup(ZoneId timeZone, VesselDetails vesselDetails, @Nullable VesselTrack vesselTrack) {
         addClassName("vessel-details-popup");
         attributes.addClassName("vessel-attributes");
         add(attributes);
@@ -36,6 +44,35 @@ public class VesselDetailsPopup extends Dialog {
             addAttribute("COG", Formatters.formatCOG(vesselLocation.cog(), getLocale()));
             addAttribute("Location last updated", Formatters.formatInstant(vesselLocation.timestamp(), timeZone, getLocale()));
         });
+        if (vesselTrack != null && vesselTrack.points().size() > 1) {
+            addTrack(vesselTrack);
+        }
+    }
+
+    /**
+     * Draws the track as an SVG polyline, scaled to fit the box. Longitudes are scaled by the cosine of the latitude
+     * so that the shape of the track looks roughly right.
+     */
+    private void addTrack(VesselTrack vesselTrack) {
+        var points = vesselTrack.points();
+        var minLat = points.stream().mapToDouble(p -> p.position().latitude().value()).min().orElseThrow();
+        var maxLat = points.stream().mapToDouble(p -> p.position().latitude().value()).max().orElseThrow();
+        var minLon = points.stream().mapToDouble(p -> p.position().longitude().value()).min().orElseThrow();
+        var maxLon = points.stream().mapToDouble(p -> p.position().longitude().value()).max().orElseThrow();
+        var lonScale = Math.cos(Math.toRadians((minLat + maxLat) / 2));
+        var extent = Math.max(Math.max(maxLat - minLat, (maxLon - minLon) * lonScale), 1e-6);
+        var scale = (TRACK_SIZE - 10) / extent;
+        var polylinePoints = points.stream()
+                .map(p -> String.format(Locale.ROOT, "%.1f,%.1f",
+                        5 + (p.position().longitude().value() - minLon) * lonScale * scale,
+                        TRACK_SIZE - 5 - (p.position().latitude().value() - minLat) * scale))
+                .collect(Collectors.joining(" "));
+        var svg = new Html(("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"%d\" height=\"%d\" viewBox=\"0 0 %d %d\">"
+                + "<polyline points=\"%s\" fill=\"none\" stroke=\"darkred\" stroke-width=\"2\" stroke-linejoin=\"round\"/>"
+                + "</svg>").formatted(TRACK_SIZE, TRACK_SIZE, TRACK_SIZE, TRACK_SIZE, polylinePoints));
+        var track = new Div(svg);
+        track.addClassName("vessel-track");
+        add(track);
     }
 
     private void addAttribute(String name, String value) {
@@ -1,5 +1,6 @@
 package com.example.demo.ais.adapter.ui;
 
+import com.example.demo.ais.service.api.VesselService;
 import com.example.demo.ais.service.dpo.VesselDetails;
 import com.vaadin.flow.spring.annotation.SpringComponent;
 import org.springframework.beans.factory.ObjectFactory;
@@ -8,13 +9,16 @@ import org.springframework.beans.factory.ObjectFactory;
 class VesselDetailsPopupFactory {
 
     private final ObjectFactory<UserPreferences> userPreferencesObjectFactory;
+    private final VesselService vesselService;
 
-    VesselDetailsPopupFactory(ObjectFactory<UserPreferences> userPreferencesObjectFactory) {
+    VesselDetailsPopupFactory(ObjectFactory<UserPreferences> userPreferencesObjectFactory, VesselService vesselService) {
         this.userPreferencesObjectFactory = userPreferencesObjectFactory;
+        this.vesselService = vesselService;
     }
 
     public VesselDetailsPopup create(VesselDetails vesselDetails) {
         var userPreferences = userPreferencesObjectFactory.getObject();
-        return new VesselDetailsPopup(userPreferences.timeZone(), vesselDetails);
+        var vesselTrack = vesselService.findVesselTrack(vesselDetails.mmsi()).orElse(null);
+        return new VesselDetailsPopup(userPreferences.timeZone(), vesselDetails, vesselTrack);
     }
 }
@@ -2,11 +2,15 @@ package com.example.demo.ais.adapter.ui;
 
 import com.example.demo.ais.domain.data.VesselLocation;
 import com.example.demo.ais.domain.primitives.*;
+import com.example.demo.ais.service.dpo.VesselCluster;
+import com.example.demo.ais.util.GeoGrid;
 import com.vaadin.flow.component.Composite;
 import com.vaadin.flow.component.HasSize;
 import com.vaadin.flow.component.map.Map;
 import com.vaadin.flow.component.map.configuration.Coordinate;
 import com.vaadin.flow.component.map.configuration.feature.MarkerFeature;
+import com.vaadin.flow.component.map.configuration.layer.FeatureLayer;
+import com.vaadin.flow.component.map.configuration.style.Icon;
 import com.vaadin.flow.component.map.events.MapFeatureClickEvent;
 import com.vaadin.flow.component.map.events.MapViewMoveEndEvent;
 import org.slf4j.Logger;
@@ -14,18 +18,41 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.function.Consumer;
 
 class VesselMap extends Composite<Map> implements HasSize {
 
     private static final Logger log = LoggerFactory.getLogger(VesselMap.class);
+    private static final double TILE_SIZE = 256; // Pixels
+    private static final double MIN_MARKER_MOVE = 1; // Pixels
+    private static final double CLUSTERING_MAX_ZOOM = 7;
+    private static final double CLUSTER_SIZE = 64; // Pixels
+    private static final String CLUSTER_ID_PREFIX = "cluster-";
+    private static final double MARKER_LAYER_CELL_SIZE = 2; // Degrees
     private final HashMap<MMSI, VesselMarker> markers = new HashMap<>();
+    private final GeoGrid markerGrid = new GeoGrid(MARKER_LAYER_CELL_SIZE);
+    private final HashMap<Long, MarkerLayer> markerLayers = new HashMap<>();
+    private final HashMap<Long, ClusterMarker> clusterMarkers = new HashMap<>();
+    private final VesselCanvasLayer canvasLayer; // null if the vessels are shown as markers
     private Envelope envelope;
+    private double minMarkerMoveInDegrees;
+    private boolean clustering;
+    private double clusterCellSizeInDegrees;
     private Consumer<Envelope> envelopeChangedCallback;
     private Consumer<MMSI> vesselClickedCallback;
 
-    VesselMap() {
+    VesselMap(VesselRendering vesselRendering) {
+        Objects.requireNonNull(vesselRendering, "vesselRendering must not be null");
+        if (vesselRendering == VesselRendering.CANVAS) {
+            canvasLayer = new VesselCanvasLayer();
+            canvasLayer.addVesselClickListener(this::onVesselClicked);
+            getContent().getElement().appendChild(canvasLayer.getElement());
+        } else {
+            canvasLayer = null;
+        }
         updateEnvelope();
         getContent().addFeatureClickListener(this::onMapFeatureClickEvent);
         getContent().addViewMoveEndEventListener(this::onMapViewMoveEndEvent);
@@ -38,21 +65,75 @@ class VesselMap extends Composite<Map> implements HasSize {
         }
     }
 
+    public Envelope envelope() {
+        return envelope;
+    }
+
+    /**
+     * Returns whether the map is zoomed out so far that it should show {@link #showClusters(Collection) clusters}
+     * instead of individual vessels. Never true when the vessels are drawn on a canvas, as the canvas can show all
+     * the vessels at any zoom level.
+     */
+    public boolean isClustering() {
+        return clustering;
+    }
+
+    public double clusterCellSizeInDegrees() {
+        return clusterCellSizeInDegrees;
+    }
+
     public void setVesselClickedCallback(Consumer<MMSI> callback) {
         vesselClickedCallback = callback;
     }
 
     public void removeVessel(MMSI vesselIdentifier) {
+        if (canvasLayer != null) {
+            canvasLayer.remove(vesselIdentifier);
+            return;
+        }
         var marker = markers.remove(vesselIdentifier);
         if (marker != null) {
             marker.removeFromMap();
         }
     }
 
+    /**
+     * Removes the vessels that are outside the envelope. Layers whose cells are completely outside the envelope are
+     * removed as a whole, and only the markers of the cells on the edge of the envelope need to be checked one by one.
+     */
     private void removeInvisibleVessels() {
-        var vesselsToRemove = markers.values().stream().filter(VesselMarker::isInvisible).map(VesselMarker::mmsi).toList();
-        log.trace("Removing {} invisible vessels", vesselsToRemove.size());
-        vesselsToRemove.forEach(this::removeVessel);
+        if (canvasLayer != null) {
+            canvasLayer.removeOutside(envelope);
+            return;
+        }
+        var south = envelope.south().value();
+        var west = envelope.west().value();
+        var north = envelope.north().value();
+        var east = envelope.east().value();
+        var removedLayers = 0;
+        for (var layer : List.copyOf(markerLayers.values())) {
+            if (!markerGrid.intersects(layer.cell, south, west, north, east)) {
+                layer.removeFromMap();
+                removedLayers++;
+            } else if (!markerGrid.isWithin(layer.cell, south, west, north, east)) {
+                layer.markers.values().stream()
+                        .filter(VesselMarker::isInvisible)
+                        .map(VesselMarker::mmsi)
+                        .toList()
+                        .forEach(this::removeVessel);
+            }
+        }
+        log.trace("Removed {} invisible marker layers", removedLayers);
+    }
+
+    private void removeAllVessels() {
+        if (canvasLayer != null) {
+            canvasLayer.clear();
+            return;
+        }
+        markerLayers.values().forEach(layer -> getContent().removeLayer(layer.featureLayer));
+        markerLayers.clear();
+        markers.clear();
     }
 
     private boolean isVisible(Position position) {
@@ -60,18 +141,66 @@ class VesselMap extends Composite<Map> implements HasSize {
     }
 
     public void addOrUpdateVessel(VesselLocation vessel) {
-        if (isVisible(vessel.position())) {
-            getMarker(vessel.mmsi()).update(vessel);
-        } else {
+        if (!isVisible(vessel.position())) {
             removeVessel(vessel.mmsi());
+        } else if (canvasLayer != null) {
+            canvasLayer.addOrUpdate(vessel);
+        } else {
+            getMarker(vessel.mmsi()).update(vessel);
         }
     }
 
     public void addOrUpdateVessels(Collection<VesselLocation> vessels) {
         log.trace("Adding or updating {} vessels", vessels.size());
+        removeAllClusters();
         vessels.forEach(this::addOrUpdateVessel);
     }
 
+    /**
+     * Replaces the vessels and the clusters on the map with the given vessels.
+     */
+    public void showVessels(Collection<VesselLocation> vessels) {
+        log.trace("Showing {} vessels", vessels.size());
+        removeAllClusters();
+        removeAllVessels();
+        vessels.forEach(this::addOrUpdateVessel);
+    }
+
+    /**
+     * Applies a batch of changes to the map. All changes made while handling the same request reach the browser in
+     * a single round-trip.
+     */
+    public void updateVessels(Collection<VesselLocation> vessels, Collection<MMSI> removedVessels) {
+        log.trace("Updating {} vessels and removing {} vessels", vessels.size(), removedVessels.size());
+        removedVessels.forEach(this::removeVessel);
+        vessels.forEach(this::addOrUpdateVessel);
+    }
+
+    /**
+     * Replaces the vessel markers and the previous clusters with the given clusters.
+     */
+    public void showClusters(Collection<VesselCluster> clusters) {
+        log.trace("Showing {} clusters", clusters.size());
+        removeAllVessels();
+        var cells = new HashSet<Long>();
+        clusters.forEach(cluster -> {
+            cells.add(cluster.cell());
+            clusterMarkers.computeIfAbsent(cluster.cell(), ClusterMarker::new).update(cluster);
+        });
+        clusterMarkers.values().removeIf(marker -> {
+            if (cells.contains(marker.cell)) {
+                return false;
+            }
+            marker.removeFromMap();
+            return true;
+        });
+    }
+
+    private void removeAllClusters() {
+        clusterMarkers.values().forEach(ClusterMarker::removeFromMap);
+        clusterMarkers.clear();
+    }
+
     private VesselMarker getMarker(MMSI mmsi) {
         return markers.computeIfAbsent(mmsi, VesselMarker::new);
     }
@@ -86,6 +215,21 @@ class VesselMap extends Composite<Map> implements HasSize {
         getContent().setZoom(state.zoom());
     }
 
+    /**
+     * How the individual vessels are drawn on the map.
+     */
+    enum VesselRendering {
+        /**
+         * A {@link MarkerFeature} per vessel, kept in sync with the browser by the map component.
+         */
+        MARKERS,
+        /**
+         * All the vessels on a single canvas in the browser, fed by binary frames of changes, also when zoomed out.
+         * See {@link VesselCanvasLayer}.
+         */
+        CANVAS
+    }
+
     record State(
             Coordinate center,
             double zoom
@@ -96,9 +240,18 @@ class VesselMap extends Composite<Map> implements HasSize {
     }
 
     private void onMapFeatureClickEvent(MapFeatureClickEvent event) {
+        if (event.getFeature().getId().startsWith(CLUSTER_ID_PREFIX)) {
+            // Zoom in on the cluster, the envelope change will then take care of the rest
+            getContent().setCenter(((MarkerFeature) event.getFeature()).getCoordinates());
+            getContent().setZoom(getContent().getView().getZoom() + 2);
+        } else {
+            onVesselClicked(new MMSI(event.getFeature().getId()));
+        }
+    }
+
+    private void onVesselClicked(MMSI mmsi) {
+        log.trace("Clicked on vessel {}", mmsi.value());
         if (vesselClickedCallback != null) {
-            var mmsi = new MMSI(event.getFeature().getId());
-            log.trace("Clicked on vessel {}", mmsi.value());
             vesselClickedCallback.accept(mmsi);
         }
     }
@@ -109,6 +262,15 @@ class VesselMap extends Composite<Map> implements HasSize {
 
     private void updateEnvelope() {
         var extent = getContent().getView().getExtent();
+        // At zoom level z, the whole world (360 degrees) is 256 * 2^z pixels wide
+        var zoom = getContent().getView().getZoom();
+        minMarkerMoveInDegrees = MIN_MARKER_MOVE * 360 / (TILE_SIZE * Math.pow(2, zoom));
+        if (canvasLayer != null) {
+            canvasLayer.setMinMoveInDegrees(minMarkerMoveInDegrees);
+        }
+        clustering = canvasLayer == null && zoom < CLUSTERING_MAX_ZOOM;
+        // Use whole zoom levels, so that the clusters stay the same while zooming within a level
+        clusterCellSizeInDegrees = Math.min(90, CLUSTER_SIZE * 360 / (TILE_SIZE * Math.pow(2, Math.floor(zoom))));
 
         var old = envelope;
         envelope = new Envelope(
@@ -124,26 +286,87 @@ class VesselMap extends Composite<Map> implements HasSize {
         }
     }
 
+    /**
+     * Layer containing the markers of the vessels in one cell of the marker grid. Having a layer per cell lets the map
+     * drop all the markers of a cell in one go when the cell is panned out of view.
+     */
+    private class MarkerLayer {
+        private final FeatureLayer featureLayer = new FeatureLayer();
+        private final HashMap<MMSI, VesselMarker> markers = new HashMap<>();
+        private final long cell;
+
+        MarkerLayer(long cell) {
+            this.cell = cell;
+            getContent().addLayer(featureLayer);
+        }
+
+        void add(VesselMarker marker) {
+            markers.put(marker.mmsi, marker);
+            featureLayer.addFeature(marker.marker);
+        }
+
+        void remove(VesselMarker marker) {
+            markers.remove(marker.mmsi);
+            featureLayer.removeFeature(marker.marker);
+            if (markers.isEmpty()) {
+                getContent().removeLayer(featureLayer);
+                markerLayers.remove(cell);
+            }
+        }
+
+        void removeFromMap() {
+            getContent().removeLayer(featureLayer);
+            markerLayers.remove(cell);
+            VesselMap.this.markers.keySet().removeAll(markers.keySet());
+        }
+    }
+
+    /**
+     * Marker of a single vessel. The marker remembers what it last sent to the browser, and only sends the
+     * properties that have changed. Moves that are too small to be seen at the current zoom level are not sent at all.
+     */
     private class VesselMarker {
         private final MarkerFeature marker = new MarkerFeature();
         private final MMSI mmsi;
         private Position position;
+        private Icon sentIcon;
+        private Position sentPosition;
+        private MarkerLayer layer;
 
         VesselMarker(MMSI mmsi) {
             this.mmsi = mmsi;
             marker.setId(mmsi.value());
-            getContent().getFeatureLayer().addFeature(marker);
         }
 
         void update(VesselLocation vesselLocation) {
             position = vesselLocation.position();
-            if (vesselLocation.sog().knotTenths() == 0) {
-                marker.setIcon(VesselMarkerIcons.getNonMovingVesselIcon(vesselLocation.heading()));
-            } else {
-                marker.setIcon(VesselMarkerIcons.getMovingVesselIcon(vesselLocation.heading()));
+            var icon = vesselLocation.sog().knotTenths() == 0
+                    ? VesselMarkerIcons.getNonMovingVesselIcon(vesselLocation.heading())
+                    : VesselMarkerIcons.getMovingVesselIcon(vesselLocation.heading());
+            // The icons are shared instances, so an identity check is enough
+            if (icon != sentIcon) {
+                marker.setIcon(icon);
+                sentIcon = icon;
+            }
+            if (sentPosition == null || hasMovedVisibly(sentPosition, position)) {
+                marker.setCoordinates(new Coordinate(position.longitude().value(), position.latitude().value()));
+                sentPosition = position;
             }
-            marker.setCoordinates(new Coordinate(vesselLocation.position().longitude().value(),
-                    vesselLocation.position().latitude().value()));
+            var cell = markerGrid.cellOf(position.latitude().value(), position.longitude().value());
+            if (layer == null || layer.cell != cell) {
+                if (layer != null) {
+                    layer.remove(this);
+                }
+                layer = markerLayers.computeIfAbsent(cell, MarkerLayer::new);
+                layer.add(this);
+            }
+        }
+
+        private boolean hasMovedVisibly(Position from, Position to) {
+            // In the Mercator projection, a degree of latitude covers more pixels the further away from the equator
+            var minLatitudeMove = minMarkerMoveInDegrees * Math.cos(Math.toRadians(from.latitude().value()));
+            return Math.abs(from.longitude().value() - to.longitude().value()) >= minMarkerMoveInDegrees
+                    || Math.abs(from.latitude().value() - to.latitude().value()) >= minLatitudeMove;
         }
 
         MMSI mmsi() {
@@ -154,6 +377,38 @@ class VesselMap extends Composite<Map> implements HasSize {
             return position == null || !isVisible(position);
         }
 
+        void removeFromMap() {
+            if (layer != null) {
+                layer.remove(this);
+                layer = null;
+            }
+        }
+    }
+
+    private class ClusterMarker {
+        private final MarkerFeature marker = new MarkerFeature();
+        private final long cell;
+        private Icon sentIcon;
+        private Position sentCenter;
+
+        ClusterMarker(long cell) {
+            this.cell = cell;
+            marker.setId(CLUSTER_ID_PREFIX + cell);
+            getContent().getFeatureLayer().addFeature(marker);
+        }
+
+        void update(VesselCluster cluster) {
+            var icon = ClusterMarkerIcons.getClusterIcon(cluster.dominantShipType(), cluster.count());
+            if (icon != sentIcon) {
+                marker.setIcon(icon);
+                sentIcon = icon;
+            }
+            if (!cluster.center().equals(sentCenter)) {
+                marker.setCoordinates(new Coordinate(cluster.center().longitude().value(), cluster.center().latitude().value()));
+                sentCenter = cluster.center();
+            }
+        }
+
         void removeFromMap() {
             getContent().getFeatureLayer().removeFeature(marker);
         }
@@ -42,6 +42,6 @@ public final class CallSign {
 
     @Override
     public int hashCode() {
-        return Objects.hash(callSign);
+        return callSign.hashCode();
     }
 }
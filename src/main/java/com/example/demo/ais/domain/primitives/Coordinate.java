@@ -1,7 +1,5 @@
 package com.example.demo.ais.domain.primitives;
 
-import java.util.Objects;
-
 public abstract sealed class Coordinate permits Latitude, Longitude {
 
     private final double coordinate;
@@ -26,6 +24,6 @@ public abstract sealed class Coordinate permits Latitude, Longitude {
 
     @Override
     public int hashCode() {
-        return Objects.hash(coordinate);
+        return Double.hashCode(coordinate);
     }
 }
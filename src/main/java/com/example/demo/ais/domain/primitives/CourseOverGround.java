@@ -1,30 +1,44 @@
 package com.example.demo.ais.domain.primitives;
 
-import java.util.Objects;
-
+/**
+ * Course over ground in tenths of a degree. Every possible course is created up front, so the factory methods never
+ * allocate.
+ */
 public final class CourseOverGround {
 
-    private static final int UNAVAILABLE = 3600;
+    private static final int UNAVAILABLE_COG = 3600;
+    private static final CourseOverGround[] COGS = new CourseOverGround[UNAVAILABLE_COG + 1];
+
+    static {
+        for (int i = 0; i < COGS.length; ++i) {
+            COGS[i] = new CourseOverGround(i);
+        }
+    }
+
+    public static final CourseOverGround UNAVAILABLE = COGS[UNAVAILABLE_COG];
 
     private final int cog;
 
     private CourseOverGround(int cog) {
-        if (cog < 0 || cog > UNAVAILABLE) {
+        if (cog < 0 || cog > UNAVAILABLE_COG) {
             throw new IllegalArgumentException("COG must bet between 0 and 3600");
         }
         this.cog = cog;
     }
 
     public static CourseOverGround ofDegrees(double degrees) {
-        return new CourseOverGround((int) (degrees * 10));
+        return ofDegreeTenths((int) (degrees * 10));
     }
 
     public static CourseOverGround ofDegreeTenths(int degreeTenths) {
-        return new CourseOverGround(degreeTenths);
+        if (degreeTenths >= 0 && degreeTenths < COGS.length) {
+            return COGS[degreeTenths];
+        }
+        return new CourseOverGround(degreeTenths); // Throws
     }
 
     public boolean isUnavailable() {
-        return cog == UNAVAILABLE;
+        return cog == UNAVAILABLE_COG;
     }
 
     public int degreeTenths() {
@@ -53,6 +67,6 @@ public final class CourseOverGround {
 
     @Override
     public int hashCode() {
-        return Objects.hash(cog);
+        return Integer.hashCode(cog);
     }
 }
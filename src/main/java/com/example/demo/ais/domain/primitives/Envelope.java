@@ -34,6 +34,22 @@ public final class Envelope {
         }
     }
 
+    public Latitude north() {
+        return north;
+    }
+
+    public Latitude south() {
+        return south;
+    }
+
+    public Longitude west() {
+        return west;
+    }
+
+    public Longitude east() {
+        return east;
+    }
+
     public boolean contains(Position position) {
         if (west.compareTo(position.longitude()) > 0 || east.compareTo(position.longitude()) < 0) {
             return false;
@@ -57,6 +73,10 @@ public final class Envelope {
 
     @Override
     public int hashCode() {
-        return Objects.hash(north, south, west, east);
+        var result = north.hashCode();
+        result = 31 * result + south.hashCode();
+        result = 31 * result + west.hashCode();
+        result = 31 * result + east.hashCode();
+        return result;
     }
 }
@@ -1,14 +1,23 @@
 package com.example.demo.ais.domain.primitives;
 
-import java.util.Objects;
-
 /**
  * Compass heading in degrees. 0 = true north, 90 = true east, 180 = true south, 270 = true west
+ * <p>
+ * There are only 361 possible headings, so every one of them is created up front and {@link #ofDegrees(int)} never
+ * allocates.
  */
 public final class Heading {
 
     private static final int UNAVAILABLE_HEADING = 511;
     public static final Heading UNAVAILABLE = new Heading(UNAVAILABLE_HEADING);
+    private static final Heading[] HEADINGS = new Heading[360];
+
+    static {
+        for (int i = 0; i < HEADINGS.length; ++i) {
+            HEADINGS[i] = new Heading(i);
+        }
+    }
+
     private final int heading;
 
     private Heading(int heading) {
@@ -19,10 +28,12 @@ public final class Heading {
     }
 
     public static Heading ofDegrees(int heading) {
-        if (heading == UNAVAILABLE_HEADING) {
+        if (heading >= 0 && heading < HEADINGS.length) {
+            return HEADINGS[heading];
+        } else if (heading == UNAVAILABLE_HEADING) {
             return Heading.UNAVAILABLE;
         } else {
-            return new Heading(heading);
+            return new Heading(heading); // Throws
         }
     }
 
@@ -48,6 +59,6 @@ public final class Heading {
 
     @Override
     public int hashCode() {
-        return Objects.hash(heading);
+        return Integer.hashCode(heading);
     }
 }
@@ -2,8 +2,6 @@ package com.example.demo.ais.domain.primitives;
 
 import com.example.demo.ais.util.StringUtils;
 
-import java.util.Objects;
-
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -11,25 +9,61 @@ import static java.util.Objects.requireNonNull;
  */
 public final class MMSI {
 
-    private final String mmsi;
+    private static final int LENGTH = 9;
+    private static final int MAX_VALUE = 999_999_999;
+
+    private final int mmsi;
 
     public MMSI(String mmsi) {
-        requireNonNull(mmsi, "MMSI must not be null");
-        if (mmsi.length() != 9) {
+        this(parseDigits(requireNonNull(mmsi, "MMSI must not be null"), 0, mmsi.length()));
+    }
+
+    private MMSI(int mmsi) {
+        this.mmsi = mmsi;
+    }
+
+    public static MMSI fromInt(int mmsi) {
+        if (mmsi < 0 || mmsi > MAX_VALUE) {
+            throw new IllegalArgumentException("MMSI must be between 0 and 999999999 (inclusive)");
+        }
+        return new MMSI(mmsi);
+    }
+
+    /**
+     * Parses the MMSI from the given range of the character sequence without creating any intermediate strings.
+     */
+    public static MMSI parse(CharSequence s, int beginIndex, int endIndex) {
+        requireNonNull(s, "MMSI must not be null");
+        return new MMSI(parseDigits(s, beginIndex, endIndex));
+    }
+
+    private static int parseDigits(CharSequence s, int beginIndex, int endIndex) {
+        if (endIndex - beginIndex != LENGTH) {
             throw new IllegalArgumentException("MMSI must consist of exactly 9 characters");
         }
-        if (!StringUtils.hasAsciiDigitsOnly(mmsi)) {
-            throw new IllegalArgumentException("MMSI must consist of numbers only");
+        var value = 0;
+        for (int i = beginIndex; i < endIndex; ++i) {
+            var c = s.charAt(i);
+            if (!StringUtils.isAsciiDigit(c)) {
+                throw new IllegalArgumentException("MMSI must consist of numbers only");
+            }
+            value = value * 10 + (c - '0');
         }
-        this.mmsi = mmsi;
+        return value;
     }
 
-    public static MMSI fromInt(int mmsi) {
-        return new MMSI("%09d".formatted(mmsi));
+    public int intValue() {
+        return mmsi;
     }
 
     public String value() {
-        return mmsi;
+        var chars = new char[LENGTH];
+        var remaining = mmsi;
+        for (int i = LENGTH - 1; i >= 0; --i) {
+            chars[i] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+        return new String(chars);
     }
 
     @Override
@@ -37,11 +71,11 @@ public final class MMSI {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         MMSI mmsi1 = (MMSI) o;
-        return Objects.equals(mmsi, mmsi1.mmsi);
+        return mmsi == mmsi1.mmsi;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(mmsi);
+        return Integer.hashCode(mmsi);
     }
 }
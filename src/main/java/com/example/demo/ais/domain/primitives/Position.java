@@ -32,6 +32,6 @@ public abstract sealed class Position permits AccuratePosition, InaccuratePositi
 
     @Override
     public int hashCode() {
-        return Objects.hash(latitude, longitude);
+        return 31 * latitude.hashCode() + longitude.hashCode();
     }
 }
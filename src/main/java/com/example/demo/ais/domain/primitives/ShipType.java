@@ -3,8 +3,11 @@ package com.example.demo.ais.domain.primitives;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Objects;
 
+/**
+ * AIS ship and cargo type. Instances are created with {@link #of(int)}, which hands out the same instance for the
+ * same type every time.
+ */
 public final class ShipType {
 
     private static final Map<Integer, String> SHIP_TYPE_CODES;
@@ -84,13 +87,25 @@ public final class ShipType {
         SHIP_TYPE_CODES = Collections.unmodifiableMap(shipTypes);
     }
 
+    private static final ShipType[] SHIP_TYPES = new ShipType[1000];
+
+    static {
+        for (int i = 0; i < SHIP_TYPES.length; ++i) {
+            SHIP_TYPES[i] = new ShipType(i);
+        }
+    }
+
     private final int shipType;
 
-    public ShipType(int shipType) {
-        if (shipType < 0 || shipType > 999) {
+    private ShipType(int shipType) {
+        this.shipType = shipType;
+    }
+
+    public static ShipType of(int shipType) {
+        if (shipType < 0 || shipType >= SHIP_TYPES.length) {
             throw new IllegalArgumentException("shipType must be between 0 and 999");
         }
-        this.shipType = shipType;
+        return SHIP_TYPES[shipType];
     }
 
     public int value() {
@@ -98,7 +113,8 @@ public final class ShipType {
     }
 
     public String description() {
-        return SHIP_TYPE_CODES.getOrDefault(shipType, "Unknown (%d)".formatted(shipType));
+        var description = SHIP_TYPE_CODES.get(shipType);
+        return description == null ? "Unknown (%d)".formatted(shipType) : description;
     }
 
     @Override
@@ -111,6 +127,6 @@ public final class ShipType {
 
     @Override
     public int hashCode() {
-        return Objects.hash(shipType);
+        return Integer.hashCode(shipType);
     }
 }
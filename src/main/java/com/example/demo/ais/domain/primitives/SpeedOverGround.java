@@ -1,33 +1,51 @@
 package com.example.demo.ais.domain.primitives;
 
-import java.util.Objects;
-
+/**
+ * Speed over ground in tenths of a knot. Every possible speed is created up front, so the factory methods never
+ * allocate.
+ */
 public final class SpeedOverGround {
 
-    private static final int UNAVAILABLE = 1023;
+    private static final int UNAVAILABLE_SOG = 1023;
+    private static final SpeedOverGround[] SOGS = new SpeedOverGround[UNAVAILABLE_SOG + 1];
+
+    static {
+        for (int i = 0; i < SOGS.length; ++i) {
+            SOGS[i] = new SpeedOverGround(i);
+        }
+    }
+
+    public static final SpeedOverGround UNAVAILABLE = SOGS[UNAVAILABLE_SOG];
 
     private final int sog;
 
     private SpeedOverGround(int sog) {
-        if (sog < 0 || sog > UNAVAILABLE) {
+        if (sog < 0 || sog > UNAVAILABLE_SOG) {
             throw new IllegalArgumentException("SOG must be between 0 and 1023");
         }
         this.sog = sog;
     }
 
     public static SpeedOverGround ofKnots(double knots) {
-        return new SpeedOverGround((int) (Math.min(knots * 10, 1022))); // 1022 means 102,2 knots OR FASTER
+        return ofSog((int) (Math.min(knots * 10, 1022))); // 1022 means 102,2 knots OR FASTER
     }
 
     /**
      * One knot step = 1/10 of a knot
      */
     public static SpeedOverGround ofKnotTenths(int knotTenths) {
-        return new SpeedOverGround(Math.min(knotTenths, 1022)); // 1022 means 102.2 knots OR FASTER
+        return ofSog(Math.min(knotTenths, 1022)); // 1022 means 102.2 knots OR FASTER
+    }
+
+    private static SpeedOverGround ofSog(int sog) {
+        if (sog >= 0 && sog < SOGS.length) {
+            return SOGS[sog];
+        }
+        return new SpeedOverGround(sog); // Throws
     }
 
     public boolean isUnavailable() {
-        return sog == UNAVAILABLE;
+        return sog == UNAVAILABLE_SOG;
     }
 
     public int knotTenths() {
@@ -52,6 +70,6 @@ public final class SpeedOverGround {
 
     @Override
     public int hashCode() {
-        return Objects.hash(sog);
+        return Integer.hashCode(sog);
     }
 }
@@ -51,6 +51,6 @@ public final class VesselName {
 
     @Override
     public int hashCode() {
-        return Objects.hash(vesselName);
+        return vesselName.hashCode();
     }
 }
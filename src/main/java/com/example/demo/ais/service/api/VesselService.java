@@ -4,7 +4,9 @@ import com.example.demo.ais.domain.data.VesselLocation;
 import com.example.demo.ais.domain.events.VesselEvent;
 import com.example.demo.ais.domain.primitives.Envelope;
 import com.example.demo.ais.domain.primitives.MMSI;
+import com.example.demo.ais.service.dpo.VesselCluster;
 import com.example.demo.ais.service.dpo.VesselDetails;
+import com.example.demo.ais.service.dpo.VesselTrack;
 import com.example.demo.ais.util.Subscription;
 
 import java.util.Collection;
@@ -16,9 +18,29 @@ public interface VesselService {
 
     Collection<VesselLocation> vesselLocations(Envelope envelope, int maxResultSize);
 
+    /**
+     * Groups the vessels inside the envelope into clusters, one per grid cell of the given size.
+     */
+    Collection<VesselCluster> vesselClusters(Envelope envelope, double cellSizeInDegrees);
+
     Optional<VesselDetails> findVesselDetails(MMSI mmsi);
 
     Collection<VesselDetails> findVesselDetails(String searchTerm, int maxResultSize);
 
+    /**
+     * Returns the recent track of the vessel, if one has been recorded.
+     */
+    Optional<VesselTrack> findVesselTrack(MMSI mmsi);
+
     Subscription subscribeToVesselEvents(Consumer<List<VesselEvent>> listener);
+
+    /**
+     * Subscribes to the events of the vessels inside the given envelope. The envelope can be changed later through
+     * the returned subscription.
+     *
+     * @param disconnectListener called if the subscription is cancelled because the listener could not keep up. The
+     *                           events that were not delivered are lost, so the listener should start over.
+     */
+    ViewportSubscription subscribeToVesselEvents(Envelope envelope, Consumer<List<VesselEvent>> listener,
+                                                 Runnable disconnectListener);
 }
@@ -0,0 +1,15 @@
+package com.example.demo.ais.service.api;
+
+import com.example.demo.ais.domain.primitives.Envelope;
+import com.example.demo.ais.util.Subscription;
+
+/**
+ * Subscription that only receives the events of the vessels that are, or just were, inside an envelope.
+ */
+public interface ViewportSubscription extends Subscription {
+
+    /**
+     * Changes the envelope of the subscription, typically because the user has moved the map.
+     */
+    void setEnvelope(Envelope envelope);
+}
@@ -0,0 +1,30 @@
+package com.example.demo.ais.service.dpo;
+
+import com.example.demo.ais.domain.primitives.Position;
+import com.example.demo.ais.domain.primitives.ShipType;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A group of vessels that are close to each other, shown as a single marker when the map is zoomed out.
+ *
+ * @param cell             the grid cell the vessels are in, stays the same as long as the cell size is the same
+ * @param center           the average position of the vessels
+ * @param count            the number of vessels
+ * @param dominantShipType the most common ship type among the vessels
+ */
+public record VesselCluster(
+        long cell,
+        Position center,
+        int count,
+        ShipType dominantShipType
+) {
+
+    public VesselCluster {
+        requireNonNull(center, "center must not be null");
+        requireNonNull(dominantShipType, "dominantShipType must not be null");
+        if (count < 1) {
+            throw new IllegalArgumentException("count must be at least 1");
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.demo.ais.service.dpo;
+
+import com.example.demo.ais.domain.primitives.MMSI;
+import com.example.demo.ais.domain.primitives.Position;
+
+import java.time.Instant;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The latest positions of a vessel, oldest first.
+ */
+public record VesselTrack(
+        MMSI mmsi,
+        List<Point> points
+) {
+
+    public VesselTrack {
+        requireNonNull(mmsi, "mmsi must not be null");
+        points = List.copyOf(requireNonNull(points, "points must not be null"));
+    }
+
+    public record Point(
+            Instant timestamp,
+            Position position
+    ) {
+
+        public Point {
+            requireNonNull(timestamp, "timestamp must not be null");
+            requireNonNull(position, "position must not be null");
+        }
+    }
+}
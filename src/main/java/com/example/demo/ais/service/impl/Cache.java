@@ -2,9 +2,9 @@ package com.example.demo.ais.service.impl;
 
 import com.example.demo.ais.domain.base.Identifiable;
 
-import java.util.Collection;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
@@ -15,18 +15,12 @@ class Cache<K, V extends Identifiable<K>> {
     private final ConcurrentHashMap<K, V> cache = new ConcurrentHashMap<>();
     private final Predicate<? super V> includeOnlyItemsMatching;
 
-    Cache(Collection<V> initialData) {
-        this(initialData, null);
+    Cache() {
+        this(null);
     }
 
-    Cache(Collection<V> initialData, Predicate<? super V> includeOnlyItemsMatching) {
-        requireNonNull(initialData, "initialData must not be null");
+    Cache(Predicate<? super V> includeOnlyItemsMatching) {
         this.includeOnlyItemsMatching = includeOnlyItemsMatching;
-        if (includeOnlyItemsMatching == null) {
-            initialData.forEach(v -> cache.put(v.id(), v));
-        } else {
-            initialData.stream().filter(includeOnlyItemsMatching).forEach(v -> cache.put(v.id(), v));
-        }
     }
 
     Optional<V> get(K key) {
@@ -63,4 +57,26 @@ class Cache<K, V extends Identifiable<K>> {
         requireNonNull(key, "key must not be null");
         cache.remove(key);
     }
+
+    /**
+     * Removes the item with the given key if it matches the condition. The callback is called with the removed item
+     * before anyone else can put a new item with the same key, so it can be used for keeping indexes in sync.
+     *
+     * @return true if the item was removed
+     */
+    boolean removeKeyIf(K key, Predicate<? super V> condition, Consumer<? super V> onRemoved) {
+        requireNonNull(key, "key must not be null");
+        requireNonNull(condition, "condition must not be null");
+        requireNonNull(onRemoved, "onRemoved must not be null");
+        var removed = new boolean[1];
+        cache.computeIfPresent(key, (k, value) -> {
+            if (condition.test(value)) {
+                onRemoved.accept(value);
+                removed[0] = true;
+                return null;
+            }
+            return value;
+        });
+        return removed[0];
+    }
 }
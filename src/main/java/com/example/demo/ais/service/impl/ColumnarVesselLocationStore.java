@@ -0,0 +1,311 @@
+package com.example.demo.ais.service.impl;
+
+import com.example.demo.ais.domain.data.VesselLocation;
+import com.example.demo.ais.domain.primitives.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Keeps the vessel locations in primitive arrays, one array per field, so that a vessel takes a few dozen bytes
+ * instead of the hundreds taken by a {@link VesselLocation} and the objects it refers to. Every vessel gets a slot,
+ * which is its index in the arrays, and the slot of a vessel is looked up from an open addressing hash table that
+ * maps the MMSI to the slot without boxing either of them. The slots of removed vessels are reused.
+ * <p>
+ * Positions are stored in units of 10<sup>-7</sup> degrees and timestamps in milliseconds. {@link VesselLocation}
+ * objects are only created for the locations that are asked for. Envelope queries scan the latitudes and longitudes
+ * of all the slots with an {@link EnvelopeScanner}, which is fast as long as the arrays fit in the CPU caches.
+ * <p>
+ * Instances are thread safe. Queries share a read lock, and updates take a write lock for the moment they need.
+ */
+class ColumnarVesselLocationStore implements VesselLocationStore {
+
+    private static final double COORDINATE_SCALE = 1e7;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int NO_VESSEL = -1; // MMSIs are never negative
+    private static final byte ACCURATE_POSITION = 1;
+    private static final EnvelopeScanner ENVELOPE_SCANNER = EnvelopeScanner.create();
+    private final Predicate<? super VesselLocation> includeOnlyItemsMatching;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // The columns, indexed by slot. The MMSI of a free slot is NO_VESSEL.
+    private int[] mmsis;
+    private long[] timestamps; // Epoch milliseconds
+    private int[] latitudes;
+    private int[] longitudes;
+    private short[] headings; // Degrees
+    private short[] cogs; // Degree tenths, -1 if not available
+    private short[] sogs; // Knot tenths, -1 if not available
+    private byte[] flags;
+    private int usedSlots; // Slots above this have never been used
+    private int[] freeSlots = new int[16];
+    private int freeSlotCount;
+    // Hash table from MMSI to slot, using linear probing
+    private int[] tableKeys;
+    private int[] tableSlots;
+    private int size;
+
+    ColumnarVesselLocationStore(Predicate<? super VesselLocation> includeOnlyItemsMatching) {
+        this.includeOnlyItemsMatching = includeOnlyItemsMatching;
+        mmsis = new int[INITIAL_CAPACITY];
+        Arrays.fill(mmsis, NO_VESSEL);
+        timestamps = new long[INITIAL_CAPACITY];
+        latitudes = new int[INITIAL_CAPACITY];
+        longitudes = new int[INITIAL_CAPACITY];
+        headings = new short[INITIAL_CAPACITY];
+        cogs = new short[INITIAL_CAPACITY];
+        sogs = new short[INITIAL_CAPACITY];
+        flags = new byte[INITIAL_CAPACITY];
+        tableKeys = new int[INITIAL_CAPACITY * 2];
+        Arrays.fill(tableKeys, NO_VESSEL);
+        tableSlots = new int[INITIAL_CAPACITY * 2];
+    }
+
+    @Override
+    public Optional<VesselLocation> get(MMSI mmsi) {
+        requireNonNull(mmsi, "mmsi must not be null");
+        VesselLocation vesselLocation;
+        lock.readLock().lock();
+        try {
+            var slot = slotOf(mmsi.intValue());
+            if (slot == NO_VESSEL) {
+                return Optional.empty();
+            }
+            vesselLocation = materialize(slot, mmsi);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return includeOnlyItemsMatching == null || includeOnlyItemsMatching.test(vesselLocation)
+                ? Optional.of(vesselLocation)
+                : Optional.empty();
+    }
+
+    @Override
+    public void put(VesselLocation vesselLocation) {
+        requireNonNull(vesselLocation, "vesselLocation must not be null");
+        if (includeOnlyItemsMatching != null && !includeOnlyItemsMatching.test(vesselLocation)) {
+            removeKey(vesselLocation.mmsi());
+            return;
+        }
+        var position = vesselLocation.position();
+        lock.writeLock().lock();
+        try {
+            var mmsi = vesselLocation.mmsi().intValue();
+            var slot = slotOf(mmsi);
+            if (slot == NO_VESSEL) {
+                slot = allocateSlot();
+                mmsis[slot] = mmsi;
+                insertIntoTable(mmsi, slot);
+            }
+            timestamps[slot] = vesselLocation.timestamp().toEpochMilli();
+            latitudes[slot] = (int) Math.round(position.latitude().value() * COORDINATE_SCALE);
+            longitudes[slot] = (int) Math.round(position.longitude().value() * COORDINATE_SCALE);
+            headings[slot] = (short) vesselLocation.heading().degrees();
+            cogs[slot] = (short) vesselLocation.cog().degreeTenths();
+            sogs[slot] = (short) vesselLocation.sog().knotTenths();
+            flags[slot] = position instanceof AccuratePosition ? ACCURATE_POSITION : 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeKey(MMSI mmsi) {
+        requireNonNull(mmsi, "mmsi must not be null");
+        lock.writeLock().lock();
+        try {
+            var slot = slotOf(mmsi.intValue());
+            if (slot != NO_VESSEL) {
+                removeSlot(slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean removeKeyIf(MMSI mmsi, Predicate<? super VesselLocation> condition) {
+        requireNonNull(mmsi, "mmsi must not be null");
+        requireNonNull(condition, "condition must not be null");
+        lock.writeLock().lock();
+        try {
+            var slot = slotOf(mmsi.intValue());
+            if (slot == NO_VESSEL || !condition.test(materialize(slot, mmsi))) {
+                return false;
+            }
+            removeSlot(slot);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<VesselLocation> within(Envelope envelope, int maxResultSize) {
+        requireNonNull(envelope, "envelope must not be null");
+        // Rounding the bounds inwards gives the same answer as comparing the coordinates as doubles
+        var south = (int) Math.ceil(envelope.south().value() * COORDINATE_SCALE);
+        var north = (int) Math.floor(envelope.north().value() * COORDINATE_SCALE);
+        var west = (int) Math.ceil(envelope.west().value() * COORDINATE_SCALE);
+        var east = (int) Math.floor(envelope.east().value() * COORDINATE_SCALE);
+        var result = new ArrayList<VesselLocation>();
+        lock.readLock().lock();
+        try {
+            var matches = new long[(usedSlots + 63) >>> 6];
+            ENVELOPE_SCANNER.scan(latitudes, longitudes, usedSlots, south, north, west, east, matches);
+            for (int word = 0; word < matches.length && result.size() < maxResultSize; ++word) {
+                for (var bits = matches[word]; bits != 0 && result.size() < maxResultSize; bits &= bits - 1) {
+                    var slot = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    // Free slots keep the coordinates of the vessel that was removed
+                    if (mmsis[slot] != NO_VESSEL) {
+                        result.add(materialize(slot, MMSI.fromInt(mmsis[slot])));
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    @Override
+    public Stream<VesselLocation> values() {
+        var result = new ArrayList<VesselLocation>();
+        lock.readLock().lock();
+        try {
+            for (int slot = 0; slot < usedSlots; ++slot) {
+                if (mmsis[slot] != NO_VESSEL) {
+                    result.add(materialize(slot, MMSI.fromInt(mmsis[slot])));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result.stream();
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private VesselLocation materialize(int slot, MMSI mmsi) {
+        var lat = new Latitude(latitudes[slot] / COORDINATE_SCALE);
+        var lon = new Longitude(longitudes[slot] / COORDINATE_SCALE);
+        var position = flags[slot] == ACCURATE_POSITION ? new AccuratePosition(lat, lon) : new InaccuratePosition(lat, lon);
+        var cog = cogs[slot] < 0 ? CourseOverGround.UNAVAILABLE : CourseOverGround.ofDegreeTenths(cogs[slot]);
+        var sog = sogs[slot] < 0 ? SpeedOverGround.UNAVAILABLE : SpeedOverGround.ofKnotTenths(sogs[slot]);
+        return new VesselLocation(Instant.ofEpochMilli(timestamps[slot]), mmsi, position,
+                Heading.ofDegrees(headings[slot]), cog, sog);
+    }
+
+    private int allocateSlot() {
+        if (freeSlotCount > 0) {
+            return freeSlots[--freeSlotCount];
+        }
+        if (usedSlots == mmsis.length) {
+            growColumns();
+        }
+        return usedSlots++;
+    }
+
+    private void removeSlot(int slot) {
+        removeFromTable(mmsis[slot]);
+        mmsis[slot] = NO_VESSEL;
+        if (freeSlotCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeSlotCount++] = slot;
+    }
+
+    private void growColumns() {
+        var capacity = mmsis.length * 2;
+        mmsis = Arrays.copyOf(mmsis, capacity);
+        Arrays.fill(mmsis, usedSlots, capacity, NO_VESSEL);
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        latitudes = Arrays.copyOf(latitudes, capacity);
+        longitudes = Arrays.copyOf(longitudes, capacity);
+        headings = Arrays.copyOf(headings, capacity);
+        cogs = Arrays.copyOf(cogs, capacity);
+        sogs = Arrays.copyOf(sogs, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+    }
+
+    private static int hash(int mmsi) {
+        // MMSIs of the same country share their first digits, so the bits need to be mixed
+        var h = mmsi * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int slotOf(int mmsi) {
+        var mask = tableKeys.length - 1;
+        for (int i = hash(mmsi) & mask; ; i = (i + 1) & mask) {
+            var key = tableKeys[i];
+            if (key == mmsi) {
+                return tableSlots[i];
+            } else if (key == NO_VESSEL) {
+                return NO_VESSEL;
+            }
+        }
+    }
+
+    private void insertIntoTable(int mmsi, int slot) {
+        // Keeping the table at most half full keeps the probe sequences short
+        if ((size + 1) * 2 > tableKeys.length) {
+            growTable();
+        }
+        var mask = tableKeys.length - 1;
+        var i = hash(mmsi) & mask;
+        while (tableKeys[i] != NO_VESSEL) {
+            i = (i + 1) & mask;
+        }
+        tableKeys[i] = mmsi;
+        tableSlots[i] = slot;
+        size++;
+    }
+
+    private void removeFromTable(int mmsi) {
+        var mask = tableKeys.length - 1;
+        var hole = hash(mmsi) & mask;
+        while (tableKeys[hole] != mmsi) {
+            hole = (hole + 1) & mask;
+        }
+        // Move back the entries after the hole that would otherwise no longer be found
+        for (int i = (hole + 1) & mask; tableKeys[i] != NO_VESSEL; i = (i + 1) & mask) {
+            var home = hash(tableKeys[i]) & mask;
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                tableKeys[hole] = tableKeys[i];
+                tableSlots[hole] = tableSlots[i];
+                hole = i;
+            }
+        }
+        tableKeys[hole] = NO_VESSEL;
+        size--;
+    }
+
+    private void growTable() {
+        var oldKeys = tableKeys;
+        var oldSlots = tableSlots;
+        tableKeys = new int[oldKeys.length * 2];
+        Arrays.fill(tableKeys, NO_VESSEL);
+        tableSlots = new int[oldSlots.length * 2];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldKeys[i] != NO_VESSEL) {
+                insertIntoTable(oldKeys[i], oldSlots[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.demo.ais.service.impl;
+
+import org.slf4j.LoggerFactory;
+
+/**
+ * Finds the slots of a {@link ColumnarVesselLocationStore} whose coordinates are inside an envelope. The coordinates
+ * and the bounds are in the units of the store, and the bounds are inclusive.
+ */
+interface EnvelopeScanner {
+
+    /**
+     * Only compiled by the {@code vector} Maven profile, as it uses the incubating Vector API.
+     */
+    String VECTOR_SCANNER_CLASS = "com.example.demo.ais.service.impl.VectorEnvelopeScanner";
+
+    /**
+     * Creates the vectorized scanner if it was compiled in and the {@code jdk.incubator.vector} module has been
+     * added to the JVM, and the scalar scanner otherwise.
+     */
+    static EnvelopeScanner create() {
+        var log = LoggerFactory.getLogger(EnvelopeScanner.class);
+        try {
+            var scanner = (EnvelopeScanner) Class.forName(VECTOR_SCANNER_CLASS).getDeclaredConstructor().newInstance();
+            log.info("Using {} for envelope scans", scanner);
+            return scanner;
+        } catch (ClassNotFoundException ex) {
+            log.debug("Vectorized envelope scans not compiled in, using scalar scans");
+        } catch (ReflectiveOperationException | LinkageError ex) {
+            log.info("Vectorized envelope scans not available, using scalar scans: {}", ex.toString());
+        }
+        return new ScalarEnvelopeScanner();
+    }
+
+    /**
+     * Scans the first {@code length} slots, and sets the bit of every slot that is inside the envelope in
+     * {@code matches}, bit {@code slot % 64} of word {@code slot / 64}. The bits of the other slots are left as they
+     * are.
+     *
+     * @param matches must have at least {@code (length + 63) / 64} words
+     */
+    void scan(int[] latitudes, int[] longitudes, int length, int south, int north, int west, int east, long[] matches);
+}
@@ -0,0 +1,84 @@
+package com.example.demo.ais.service.impl;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Queue that groups keys into time buckets by their timestamps, so that the keys older than a given instant can be
+ * found without looking at any of the newer keys. Every key is in one bucket at most; scheduling a key again moves it
+ * to the bucket of its new timestamp.
+ */
+class ExpiryQueue<K> {
+
+    private final long bucketSizeMillis;
+    private final ConcurrentSkipListMap<Long, Set<K>> buckets = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<K, Long> bucketOfKey = new ConcurrentHashMap<>();
+
+    ExpiryQueue(Duration bucketSize) {
+        requireNonNull(bucketSize, "bucketSize must not be null");
+        this.bucketSizeMillis = bucketSize.toMillis();
+        if (bucketSizeMillis < 1) {
+            throw new IllegalArgumentException("bucketSize must be at least 1 ms");
+        }
+    }
+
+    void schedule(K key, Instant timestamp) {
+        requireNonNull(key, "key must not be null");
+        requireNonNull(timestamp, "timestamp must not be null");
+        var newBucket = Math.floorDiv(timestamp.toEpochMilli(), bucketSizeMillis);
+        // Computing inside the key mapping makes moving a key from one bucket to another atomic per key
+        bucketOfKey.compute(key, (k, oldBucket) -> {
+            if (oldBucket != null && oldBucket != newBucket) {
+                removeFromBucket(oldBucket, k);
+            }
+            buckets.computeIfAbsent(newBucket, bucket -> ConcurrentHashMap.newKeySet()).add(k);
+            return newBucket;
+        });
+    }
+
+    void removeKey(K key) {
+        requireNonNull(key, "key must not be null");
+        bucketOfKey.computeIfPresent(key, (k, bucket) -> {
+            removeFromBucket(bucket, k);
+            return null;
+        });
+    }
+
+    private void removeFromBucket(long bucket, K key) {
+        var keys = buckets.get(bucket);
+        if (keys != null) {
+            keys.remove(key);
+        }
+    }
+
+    /**
+     * Removes and returns the keys of all buckets that are completely older than the given instant. Keys in the
+     * bucket that contains the instant are left for a later call, so they may be returned up to one bucket late.
+     */
+    List<K> pollOlderThan(Instant instant) {
+        requireNonNull(instant, "instant must not be null");
+        var firstBucketToKeep = Math.floorDiv(instant.toEpochMilli(), bucketSizeMillis);
+        var expiredKeys = new ArrayList<K>();
+        for (var bucket = buckets.firstEntry(); bucket != null && bucket.getKey() < firstBucketToKeep; bucket = buckets.firstEntry()) {
+            buckets.remove(bucket.getKey());
+            for (var key : bucket.getValue()) {
+                // The key may have been rescheduled into a newer bucket after we got hold of this one
+                if (bucketOfKey.remove(key, bucket.getKey())) {
+                    expiredKeys.add(key);
+                }
+            }
+        }
+        return expiredKeys;
+    }
+
+    int size() {
+        return bucketOfKey.size();
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.demo.ais.service.impl;
+
+import com.example.demo.ais.domain.data.VesselLocation;
+import com.example.demo.ais.domain.primitives.Envelope;
+import com.example.demo.ais.domain.primitives.MMSI;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static java.util.Objects.requireNonNull;
+
+class IndexedVesselLocationStore implements VesselLocationStore {
+
+    private static final double INDEX_CELL_SIZE = 0.5; // Degrees
+    private final Cache<MMSI, VesselLocation> cache;
+    private final SpatialIndex<MMSI, VesselLocation> index;
+
+    IndexedVesselLocationStore(Predicate<? super VesselLocation> includeOnlyItemsMatching) {
+        this.cache = new Cache<>(includeOnlyItemsMatching);
+        this.index = new SpatialIndex<>(INDEX_CELL_SIZE, VesselLocation::position);
+    }
+
+    @Override
+    public Optional<VesselLocation> get(MMSI mmsi) {
+        return cache.get(mmsi);
+    }
+
+    @Override
+    public void put(VesselLocation vesselLocation) {
+        cache.put(vesselLocation);
+        index.put(vesselLocation);
+    }
+
+    @Override
+    public void removeKey(MMSI mmsi) {
+        cache.removeKey(mmsi);
+        index.removeKey(mmsi);
+    }
+
+    @Override
+    public boolean removeKeyIf(MMSI mmsi, Predicate<? super VesselLocation> condition) {
+        return cache.removeKeyIf(mmsi, condition, vesselLocation -> index.removeKey(mmsi));
+    }
+
+    @Override
+    public List<VesselLocation> within(Envelope envelope, int maxResultSize) {
+        requireNonNull(envelope, "envelope must not be null");
+        return index.within(envelope).limit(maxResultSize).toList();
+    }
+
+    @Override
+    public Stream<VesselLocation> values() {
+        return cache.values();
+    }
+
+    @Override
+    public int size() {
+        return cache.size();
+    }
+}
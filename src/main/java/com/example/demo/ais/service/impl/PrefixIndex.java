@@ -0,0 +1,73 @@
+package com.example.demo.ais.service.impl;
+
+import com.example.demo.ais.domain.base.Identifiable;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Index that finds items by the prefixes of their search terms. The search terms are lower-cased once when an item
+ * is put into the index, and are kept sorted so that a prefix lookup only visits the matching terms.
+ */
+class PrefixIndex<K, V extends Identifiable<K>> {
+
+    private final Function<? super V, Collection<String>> searchTermsOf;
+    private final ConcurrentSkipListMap<String, ConcurrentHashMap<K, V>> itemsByTerm = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<K, V> items = new ConcurrentHashMap<>();
+
+    PrefixIndex(Function<? super V, Collection<String>> searchTermsOf) {
+        this.searchTermsOf = requireNonNull(searchTermsOf, "searchTermsOf must not be null");
+    }
+
+    // Writes are rare compared to reads, so they are serialized to keep the term sets consistent.
+    synchronized void put(V value) {
+        requireNonNull(value, "value must not be null");
+        var old = items.put(value.id(), value);
+        if (old != null) {
+            searchTermsOf.apply(old).forEach(term -> removeFromTerm(normalize(term), old.id()));
+        }
+        searchTermsOf.apply(value).forEach(term -> itemsByTerm
+                .computeIfAbsent(normalize(term), t -> new ConcurrentHashMap<>())
+                .put(value.id(), value));
+    }
+
+    synchronized void removeKey(K key) {
+        requireNonNull(key, "key must not be null");
+        var old = items.remove(key);
+        if (old != null) {
+            searchTermsOf.apply(old).forEach(term -> removeFromTerm(normalize(term), key));
+        }
+    }
+
+    private void removeFromTerm(String term, K key) {
+        var itemsWithTerm = itemsByTerm.get(term);
+        if (itemsWithTerm != null) {
+            itemsWithTerm.remove(key);
+            if (itemsWithTerm.isEmpty()) {
+                itemsByTerm.remove(term);
+            }
+        }
+    }
+
+    /**
+     * Returns the items that have at least one search term starting with the given prefix, ordered by the matching
+     * term. The prefix is expected to be lower-cased already. Items matching several terms are only returned once.
+     */
+    Stream<V> startingWith(String prefix) {
+        requireNonNull(prefix, "prefix must not be null");
+        return itemsByTerm.subMap(prefix, true, prefix + Character.MAX_VALUE, false)
+                .values()
+                .stream()
+                .flatMap(itemsWithTerm -> itemsWithTerm.values().stream())
+                .distinct();
+    }
+
+    private static String normalize(String term) {
+        return term.toLowerCase();
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.demo.ais.service.impl;
+
+final class ScalarEnvelopeScanner implements EnvelopeScanner {
+
+    @Override
+    public void scan(int[] latitudes, int[] longitudes, int length, int south, int north, int west, int east,
+                     long[] matches) {
+        for (int slot = 0; slot < length; ++slot) {
+            var lat = latitudes[slot];
+            var lon = longitudes[slot];
+            if (lat >= south && lat <= north && lon >= west && lon <= east) {
+                matches[slot >>> 6] |= 1L << slot;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "scalar envelope scanner";
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.demo.ais.service.impl;
+
+import com.example.demo.ais.domain.data.VesselData;
+import com.example.demo.ais.domain.data.VesselLocation;
+import com.example.demo.ais.domain.primitives.*;
+import com.example.demo.ais.util.Result;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Compact binary file containing the vessel locations and vessel data of the caches. The file is written through a
+ * file channel into a temporary file that then replaces the old snapshot, so a crash while writing never leaves a
+ * broken snapshot behind. The file is read back through a memory mapping.
+ */
+class SnapshotFile {
+
+    private static final int MAGIC = 0x41495321;
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_RECORD_SIZE = 1024;
+    private final Path path;
+
+    SnapshotFile(Path path) {
+        this.path = requireNonNull(path, "path must not be null");
+    }
+
+    boolean exists() {
+        return Files.isRegularFile(path);
+    }
+
+    void write(Stream<VesselLocation> vesselLocations, Stream<VesselData> vesselData) throws IOException {
+        var parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        var tempFile = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            try (var channel = FileChannel.open(tempFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                var buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+                buffer.putInt(MAGIC).putInt(VERSION);
+                writeRecords(channel, buffer, vesselLocations.iterator(), SnapshotFile::putVesselLocation);
+                writeRecords(channel, buffer, vesselData.iterator(), SnapshotFile::putVesselData);
+                flush(channel, buffer);
+                channel.force(false);
+            }
+            Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RecordWriter<T> {
+        void put(ByteBuffer buffer, T item);
+    }
+
+    /**
+     * Writes the records of a section followed by an end-of-section marker. Record counts are not known up front
+     * since the caches keep changing while the snapshot is being written.
+     */
+    private static <T> void writeRecords(FileChannel channel, ByteBuffer buffer, Iterator<T> items, RecordWriter<T> writer) throws IOException {
+        while (items.hasNext()) {
+            if (buffer.remaining() < MAX_RECORD_SIZE) {
+                flush(channel, buffer);
+            }
+            buffer.put((byte) 1);
+            writer.put(buffer, items.next());
+        }
+        buffer.put((byte) 0);
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static void putVesselLocation(ByteBuffer buffer, VesselLocation vesselLocation) {
+        buffer.putLong(vesselLocation.timestamp().toEpochMilli());
+        buffer.putInt(vesselLocation.mmsi().intValue());
+        buffer.put(vesselLocation.position() instanceof AccuratePosition ? (byte) 1 : (byte) 0);
+        buffer.putDouble(vesselLocation.position().latitude().value());
+        buffer.putDouble(vesselLocation.position().longitude().value());
+        buffer.putShort((short) vesselLocation.heading().degrees());
+        buffer.putShort((short) vesselLocation.cog().degreeTenths());
+        buffer.putShort((short) vesselLocation.sog().knotTenths());
+    }
+
+    private static void putVesselData(ByteBuffer buffer, VesselData vesselData) {
+        buffer.putLong(vesselData.timestamp().toEpochMilli());
+        buffer.putInt(vesselData.mmsi().intValue());
+        buffer.putShort((short) vesselData.shipType().value());
+        putString(buffer, vesselData.vesselName().value());
+        putString(buffer, vesselData.callSign().value());
+    }
+
+    private static void putString(ByteBuffer buffer, String s) {
+        var bytes = s.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Reads the snapshot, passing its contents to the consumers.
+     *
+     * @return the number of items passed to the consumers
+     */
+    Result<Integer> read(Consumer<VesselLocation> vesselLocationConsumer, Consumer<VesselData> vesselDataConsumer) {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return Result.failure("Unknown snapshot file format");
+            }
+            var count = 0;
+            while (buffer.get() != 0) {
+                vesselLocationConsumer.accept(getVesselLocation(buffer));
+                count++;
+            }
+            while (buffer.get() != 0) {
+                vesselDataConsumer.accept(getVesselData(buffer));
+                count++;
+            }
+            return Result.success(count);
+        } catch (Throwable ex) {
+            return Result.failure(ex);
+        }
+    }
+
+    private static VesselLocation getVesselLocation(ByteBuffer buffer) {
+        var timestamp = Instant.ofEpochMilli(buffer.getLong());
+        var mmsi = MMSI.fromInt(buffer.getInt());
+        var accurate = buffer.get() == 1;
+        var lat = new Latitude(buffer.getDouble());
+        var lon = new Longitude(buffer.getDouble());
+        var position = accurate ? new AccuratePosition(lat, lon) : new InaccuratePosition(lat, lon);
+        var heading = Heading.ofDegrees(buffer.getShort());
+        var cogTenths = buffer.getShort();
+        var cog = cogTenths < 0 ? CourseOverGround.UNAVAILABLE : CourseOverGround.ofDegreeTenths(cogTenths);
+        var sogTenths = buffer.getShort();
+        var sog = sogTenths < 0 ? SpeedOverGround.UNAVAILABLE : SpeedOverGround.ofKnotTenths(sogTenths);
+        return new VesselLocation(timestamp, mmsi, position, heading, cog, sog);
+    }
+
+    private static VesselData getVesselData(ByteBuffer buffer) {
+        var timestamp = Instant.ofEpochMilli(buffer.getLong());
+        var mmsi = MMSI.fromInt(buffer.getInt());
+        var shipType = ShipType.of(buffer.getShort());
+        var vesselName = new VesselName(getString(buffer));
+        var callSign = new CallSign(getString(buffer));
+        return new VesselData(timestamp, mmsi, vesselName, callSign, shipType);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        var bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
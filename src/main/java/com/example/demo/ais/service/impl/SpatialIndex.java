@@ -0,0 +1,98 @@
+package com.example.demo.ais.service.impl;
+
+import com.example.demo.ais.domain.base.Identifiable;
+import com.example.demo.ais.domain.primitives.Envelope;
+import com.example.demo.ais.domain.primitives.Position;
+import com.example.demo.ais.util.GeoGrid;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Index that groups items into fixed size grid cells by their position, so that envelope queries only have to look
+ * at the items in the cells that overlap the envelope.
+ */
+class SpatialIndex<K, V extends Identifiable<K>> {
+
+    private final GeoGrid grid;
+    private final Function<? super V, Position> positionOf;
+    private final ConcurrentHashMap<Long, ConcurrentHashMap<K, V>> cells = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<K, Long> cellOfKey = new ConcurrentHashMap<>();
+
+    SpatialIndex(double cellSizeInDegrees, Function<? super V, Position> positionOf) {
+        this.grid = new GeoGrid(cellSizeInDegrees);
+        this.positionOf = requireNonNull(positionOf, "positionOf must not be null");
+    }
+
+    void put(V value) {
+        requireNonNull(value, "value must not be null");
+        var position = positionOf.apply(value);
+        var newCell = grid.cellOf(position.latitude().value(), position.longitude().value());
+        // Computing inside the key mapping makes moving an item from one cell to another atomic per key
+        cellOfKey.compute(value.id(), (key, oldCell) -> {
+            if (oldCell != null && oldCell != newCell) {
+                removeFromCell(oldCell, key);
+            }
+            cells.computeIfAbsent(newCell, cell -> new ConcurrentHashMap<>()).put(key, value);
+            return newCell;
+        });
+    }
+
+    void removeKey(K key) {
+        requireNonNull(key, "key must not be null");
+        cellOfKey.computeIfPresent(key, (k, cell) -> {
+            removeFromCell(cell, k);
+            return null;
+        });
+    }
+
+    private void removeFromCell(long cell, K key) {
+        var items = cells.get(cell);
+        if (items != null) {
+            items.remove(key);
+        }
+    }
+
+    int size() {
+        return cellOfKey.size();
+    }
+
+    /**
+     * Returns the items that are inside the given envelope. Only the cells overlapping the envelope are visited,
+     * and the items of cells that are completely inside the envelope are returned without checking their positions.
+     */
+    Stream<V> within(Envelope envelope) {
+        requireNonNull(envelope, "envelope must not be null");
+        var south = envelope.south().value();
+        var west = envelope.west().value();
+        var north = envelope.north().value();
+        var east = envelope.east().value();
+
+        var cellsToVisit = new ArrayList<Map.Entry<Long, ConcurrentHashMap<K, V>>>();
+        if (grid.cellCount(south, west, north, east) > cells.size()) {
+            // Cheaper to go through the non-empty cells than through all the cells of a large envelope
+            cells.entrySet().stream()
+                    .filter(cell -> grid.intersects(cell.getKey(), south, west, north, east))
+                    .forEach(cellsToVisit::add);
+        } else {
+            grid.forEachCell(south, west, north, east, cell -> {
+                var items = cells.get(cell);
+                if (items != null) {
+                    cellsToVisit.add(Map.entry(cell, items));
+                }
+            });
+        }
+        return cellsToVisit.stream().flatMap(cell -> {
+            if (grid.isWithin(cell.getKey(), south, west, north, east)) {
+                return cell.getValue().values().stream();
+            } else {
+                return cell.getValue().values().stream().filter(v -> envelope.contains(positionOf.apply(v)));
+            }
+        });
+    }
+}
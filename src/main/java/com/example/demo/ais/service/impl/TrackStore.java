@@ -0,0 +1,156 @@
+package com.example.demo.ais.service.impl;
+
+import com.example.demo.ais.domain.data.VesselLocation;
+import com.example.demo.ais.domain.primitives.InaccuratePosition;
+import com.example.demo.ais.domain.primitives.Latitude;
+import com.example.demo.ais.domain.primitives.Longitude;
+import com.example.demo.ais.domain.primitives.MMSI;
+import com.example.demo.ais.service.dpo.VesselTrack;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Keeps the latest positions of every vessel in fixed size ring buffers. All the ring buffers are slices of a few
+ * primitive arrays that are allocated up front, so the memory used by the store never grows: positions are stored as
+ * latitudes and longitudes in units of 10<sup>-7</sup> degrees, and timestamps as seconds since the first point of
+ * the track. When all the slots are taken, new vessels get no track until the track of another vessel is removed.
+ * <p>
+ * Instances are thread safe. All methods are synchronized, as each of them only takes a moment.
+ */
+class TrackStore {
+
+    private static final double COORDINATE_SCALE = 1e7;
+    private static final int NO_SLOT = -1;
+    private final int maxVessels;
+    private final int pointsPerVessel;
+    private final long minPointIntervalSeconds;
+    private final int[] latitudes;
+    private final int[] longitudes;
+    private final int[] timeOffsets; // Seconds since the base time of the track
+    private final long[] baseTimes; // Epoch seconds, per slot
+    private final int[] heads; // Index of the next point to write, per slot
+    private final int[] counts; // Number of points, per slot
+    private final int[] freeSlots;
+    private int freeSlotCount;
+    private final HashMap<MMSI, Integer> slotOfVessel = new HashMap<>();
+
+    /**
+     * @param minPointInterval the minimum time between two points of the same track, so that vessels reporting often
+     *                         do not fill their track in a matter of minutes
+     */
+    TrackStore(int maxVessels, int pointsPerVessel, Duration minPointInterval) {
+        requireNonNull(minPointInterval, "minPointInterval must not be null");
+        if (maxVessels < 1 || pointsPerVessel < 2) {
+            throw new IllegalArgumentException("maxVessels must be at least 1 and pointsPerVessel at least 2");
+        }
+        if ((long) maxVessels * pointsPerVessel > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("maxVessels * pointsPerVessel is too large");
+        }
+        this.maxVessels = maxVessels;
+        this.pointsPerVessel = pointsPerVessel;
+        this.minPointIntervalSeconds = minPointInterval.toSeconds();
+        this.latitudes = new int[maxVessels * pointsPerVessel];
+        this.longitudes = new int[maxVessels * pointsPerVessel];
+        this.timeOffsets = new int[maxVessels * pointsPerVessel];
+        this.baseTimes = new long[maxVessels];
+        this.heads = new int[maxVessels];
+        this.counts = new int[maxVessels];
+        this.freeSlots = new int[maxVessels];
+        for (int i = 0; i < maxVessels; ++i) {
+            freeSlots[i] = maxVessels - 1 - i;
+        }
+        this.freeSlotCount = maxVessels;
+    }
+
+    /**
+     * Adds the location to the track of the vessel.
+     *
+     * @return false if the vessel has no track and there was no free slot for one
+     */
+    synchronized boolean add(VesselLocation vesselLocation) {
+        requireNonNull(vesselLocation, "vesselLocation must not be null");
+        var slot = slotOf(vesselLocation.mmsi());
+        if (slot == NO_SLOT) {
+            return false;
+        }
+        var epochSeconds = vesselLocation.timestamp().getEpochSecond();
+        var count = counts[slot];
+        if (count == 0) {
+            baseTimes[slot] = epochSeconds;
+        } else {
+            var latest = index(slot, heads[slot] - 1);
+            var latestEpochSeconds = baseTimes[slot] + timeOffsets[latest];
+            if (epochSeconds - latestEpochSeconds < minPointIntervalSeconds) {
+                return true;
+            }
+        }
+        var index = index(slot, heads[slot]);
+        latitudes[index] = (int) Math.round(vesselLocation.position().latitude().value() * COORDINATE_SCALE);
+        longitudes[index] = (int) Math.round(vesselLocation.position().longitude().value() * COORDINATE_SCALE);
+        timeOffsets[index] = (int) (epochSeconds - baseTimes[slot]);
+        heads[slot] = (heads[slot] + 1) % pointsPerVessel;
+        counts[slot] = Math.min(count + 1, pointsPerVessel);
+        return true;
+    }
+
+    private int slotOf(MMSI mmsi) {
+        var slot = slotOfVessel.get(mmsi);
+        if (slot != null) {
+            return slot;
+        }
+        if (freeSlotCount == 0) {
+            return NO_SLOT;
+        }
+        var newSlot = freeSlots[--freeSlotCount];
+        heads[newSlot] = 0;
+        counts[newSlot] = 0;
+        slotOfVessel.put(mmsi, newSlot);
+        return newSlot;
+    }
+
+    private int index(int slot, int point) {
+        return slot * pointsPerVessel + Math.floorMod(point, pointsPerVessel);
+    }
+
+    synchronized void removeKey(MMSI mmsi) {
+        requireNonNull(mmsi, "mmsi must not be null");
+        var slot = slotOfVessel.remove(mmsi);
+        if (slot != null) {
+            freeSlots[freeSlotCount++] = slot;
+        }
+    }
+
+    /**
+     * Returns the track of the vessel, oldest point first, leaving out the points older than the given instant.
+     */
+    synchronized Optional<VesselTrack> track(MMSI mmsi, Instant notBefore) {
+        requireNonNull(mmsi, "mmsi must not be null");
+        requireNonNull(notBefore, "notBefore must not be null");
+        var slot = slotOfVessel.get(mmsi);
+        if (slot == null) {
+            return Optional.empty();
+        }
+        var count = counts[slot];
+        var points = new ArrayList<VesselTrack.Point>(count);
+        for (int i = heads[slot] - count; i < heads[slot]; ++i) {
+            var index = index(slot, i);
+            var timestamp = Instant.ofEpochSecond(baseTimes[slot] + timeOffsets[index]);
+            if (!timestamp.isBefore(notBefore)) {
+                var position = new InaccuratePosition(new Latitude(latitudes[index] / COORDINATE_SCALE),
+                        new Longitude(longitudes[index] / COORDINATE_SCALE));
+                points.add(new VesselTrack.Point(timestamp, position));
+            }
+        }
+        return Optional.of(new VesselTrack(mmsi, points));
+    }
+
+    synchronized int size() {
+        return maxVessels - freeSlotCount;
+    }
+}
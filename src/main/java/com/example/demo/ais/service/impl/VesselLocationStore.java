@@ -0,0 +1,64 @@
+package com.example.demo.ais.service.impl;
+
+import com.example.demo.ais.domain.data.VesselLocation;
+import com.example.demo.ais.domain.primitives.Envelope;
+import com.example.demo.ais.domain.primitives.MMSI;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * The latest location of every vessel, searchable by MMSI and by envelope. Implementations are thread safe.
+ */
+interface VesselLocationStore {
+
+    enum Type {
+        /**
+         * Keeps the {@link VesselLocation} objects in a cache and a spatial index.
+         */
+        INDEXED,
+        /**
+         * Keeps the locations in primitive columns, and only creates {@link VesselLocation} objects when they are
+         * asked for. Uses a fraction of the memory of {@link #INDEXED}, but has to scan all the vessels to answer an
+         * envelope query.
+         */
+        COLUMNAR
+    }
+
+    /**
+     * Creates a store of the given type.
+     *
+     * @param includeOnlyItemsMatching the locations that do not match are not put into the store, and are not
+     *                                 returned by {@link #get(MMSI)} either
+     */
+    static VesselLocationStore create(Type type, Predicate<? super VesselLocation> includeOnlyItemsMatching) {
+        return switch (type) {
+            case INDEXED -> new IndexedVesselLocationStore(includeOnlyItemsMatching);
+            case COLUMNAR -> new ColumnarVesselLocationStore(includeOnlyItemsMatching);
+        };
+    }
+
+    Optional<VesselLocation> get(MMSI mmsi);
+
+    void put(VesselLocation vesselLocation);
+
+    void removeKey(MMSI mmsi);
+
+    /**
+     * Removes the location of the vessel if it matches the condition.
+     *
+     * @return true if the location was removed
+     */
+    boolean removeKeyIf(MMSI mmsi, Predicate<? super VesselLocation> condition);
+
+    /**
+     * Returns at most the given number of locations inside the envelope, in no particular order.
+     */
+    List<VesselLocation> within(Envelope envelope, int maxResultSize);
+
+    Stream<VesselLocation> values();
+
+    int size();
+}
@@ -6,53 +6,241 @@ import com.example.demo.ais.domain.events.VesselDataUpdatedEvent;
 import com.example.demo.ais.domain.events.VesselEvent;
 import com.example.demo.ais.domain.events.VesselLocationOutdatedEvent;
 import com.example.demo.ais.domain.events.VesselLocationUpdatedEvent;
-import com.example.demo.ais.domain.primitives.Envelope;
-import com.example.demo.ais.domain.primitives.MMSI;
+import com.example.demo.ais.domain.primitives.*;
 import com.example.demo.ais.service.api.VesselService;
+import com.example.demo.ais.service.api.ViewportSubscription;
+import com.example.demo.ais.service.dpo.VesselCluster;
 import com.example.demo.ais.service.dpo.VesselDetails;
+import com.example.demo.ais.service.dpo.VesselTrack;
 import com.example.demo.ais.service.spi.AIS;
+import com.example.demo.ais.util.GeoGrid;
+import com.example.demo.ais.util.Mailboxes;
+import com.example.demo.ais.util.OverflowPolicy;
+import com.example.demo.ais.util.PipelineLatency;
 import com.example.demo.ais.util.Subscription;
 import com.example.demo.ais.util.TumblingWindowEventDispatcher;
+import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.file.Path;
 import java.time.Clock;
 import java.time.Duration;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
-import java.util.Optional;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
-import java.util.function.Predicate;
+import java.util.function.Function;
 
 import static java.util.Objects.requireNonNull;
 
 @Service
 class VesselServiceImpl implements VesselService {
 
+    private static final Logger log = LoggerFactory.getLogger(VesselServiceImpl.class);
     private static final Duration VESSEL_LOCATION_MAX_AGE = Duration.ofDays(1);
     private static final Duration EVENT_WINDOW_SIZE = Duration.ofSeconds(1);
-    private final Cache<MMSI, VesselLocation> vesselLocationCache;
+    private static final Duration SNAPSHOT_INTERVAL = Duration.ofMinutes(1);
+    private static final Duration EXPIRY_INTERVAL = Duration.ofMinutes(1);
+    private static final Duration TRACK_MIN_POINT_INTERVAL = Duration.ofMinutes(2);
+    private static final Duration TRACK_MAX_AGE = Duration.ofHours(6);
+    private final VesselLocationStore vesselLocationStore;
+    private final ExpiryQueue<MMSI> vesselLocationExpiryQueue;
+    private final ScheduledExecutorService expiryThread;
+    private final Counter expiredVesselLocations;
+    private final TrackStore trackStore;
+    private final Counter rejectedTracks;
     private final Cache<MMSI, VesselData> vesselDataCache;
+    private final PrefixIndex<MMSI, VesselData> vesselDataIndex;
     private final ScheduledExecutorService eventDispatcherThread;
     private final TumblingWindowEventDispatcher<VesselEvent> vesselEventDispatcher;
+    private final ExecutorService subscriberThreads;
+    private final Mailboxes<VesselEvent> subscriberMailboxes;
+    private final ViewportSubscriptions viewportSubscriptions;
+    private final PipelineLatency cacheApplyLatency;
+    private final PipelineLatency dispatchLatency;
     private final Clock clock;
+    private final ExecutorService startupThreads;
+    private final ScheduledExecutorService snapshotThread;
+    private final SnapshotFile snapshotFile;
+    private final Object startupLock = new Object();
+    private List<VesselEvent> eventsReceivedDuringStartup = new ArrayList<>(); // Guarded by startupLock
+    private volatile boolean started;
 
-    VesselServiceImpl(AIS ais, Clock clock, MeterRegistry meterRegistry) {
+    VesselServiceImpl(AIS ais, Clock clock, MeterRegistry meterRegistry,
+                      @Value("${vessel-service.snapshot.file:}") String snapshotFile,
+                      @Value("${vessel-service.subscriber.mailbox-capacity:16}") int subscriberMailboxCapacity,
+                      @Value("${vessel-service.subscriber.overflow-policy:COALESCE}") OverflowPolicy subscriberOverflowPolicy,
+                      @Value("${vessel-service.track.max-vessels:40000}") int trackMaxVessels,
+                      @Value("${vessel-service.track.points-per-vessel:60}") int trackPointsPerVessel,
+                      @Value("${vessel-service.location-store:INDEXED}") VesselLocationStore.Type locationStoreType) {
         this.clock = clock;
         this.eventDispatcherThread = Executors.newSingleThreadScheduledExecutor();
-        this.vesselEventDispatcher = new TumblingWindowEventDispatcher<>(eventDispatcherThread, EVENT_WINDOW_SIZE);
-        this.vesselLocationCache = new Cache<>(ais.loadAllVesselLocations().orElse(Collections.emptySet()), this::isNotOutdated);
-        this.vesselDataCache = new Cache<>(ais.loadAllVesselData().orElse(Collections.emptySet()));
+        this.vesselEventDispatcher = new TumblingWindowEventDispatcher<>(eventDispatcherThread, EVENT_WINDOW_SIZE,
+                VesselEventKey::of, VesselServiceImpl::coalesceVesselEvents);
+        this.subscriberThreads = Executors.newCachedThreadPool();
+        this.subscriberMailboxes = new Mailboxes<>("vessel-service.subscriber", subscriberThreads,
+                subscriberMailboxCapacity, subscriberOverflowPolicy,
+                VesselEventKey::of, VesselServiceImpl::coalesceDispatchedVesselEvents, meterRegistry);
+        this.viewportSubscriptions = new ViewportSubscriptions(subscriberMailboxes);
+        this.cacheApplyLatency = new PipelineLatency("cache-apply", clock, meterRegistry);
+        this.dispatchLatency = new PipelineLatency("dispatch", clock, meterRegistry);
+        this.vesselEventDispatcher.subscribe(this::recordDispatchLatency);
+        this.vesselEventDispatcher.subscribe(viewportSubscriptions::dispatch);
+        this.vesselLocationStore = VesselLocationStore.create(locationStoreType, this::isNotOutdated);
+        log.info("Using {} vessel location store", locationStoreType);
+        this.vesselLocationExpiryQueue = new ExpiryQueue<>(EXPIRY_INTERVAL);
+        this.trackStore = new TrackStore(trackMaxVessels, trackPointsPerVessel, TRACK_MIN_POINT_INTERVAL);
+        this.rejectedTracks = meterRegistry.counter("vessel-service.tracks.rejected");
+        this.vesselDataCache = new Cache<>();
+        this.vesselDataIndex = new PrefixIndex<>(this::searchTermsOf);
+        this.snapshotFile = snapshotFile.isBlank() ? null : new SnapshotFile(Path.of(snapshotFile));
+        this.snapshotThread = Executors.newSingleThreadScheduledExecutor();
 
-        Gauge.builder("vessel-service.cache.vessel-location.size", this.vesselDataCache::size).register(meterRegistry);
+        // The local snapshot is loaded synchronously, as it only takes a moment and gives us something to show
+        // right away. The remote snapshots and the live feed will then bring it up to date.
+        if (this.snapshotFile != null && this.snapshotFile.exists()) {
+            this.snapshotFile.read(this::putVesselLocation, this::putVesselData)
+                    .doOnError(reason -> log.error("Error reading snapshot file: {}", reason))
+                    .doIfSuccessful(count -> log.info("Loaded {} items from snapshot file", count));
+        }
+
+        Gauge.builder("vessel-service.cache.vessel-location.size", this.vesselLocationStore::size).register(meterRegistry);
         Gauge.builder("vessel-service.cache.vessel-data.size", this.vesselDataCache::size).register(meterRegistry);
+        this.expiredVesselLocations = meterRegistry.counter("vessel-service.cache.vessel-location.expired");
+        Gauge.builder("vessel-service.tracks.size", this.trackStore::size).register(meterRegistry);
+        Gauge.builder("vessel-service.dispatcher.window-size", this.vesselEventDispatcher::windowSize).register(meterRegistry);
 
+        // Vessels that go silent would otherwise stay in the cache and the index until they report again
+        this.expiryThread = Executors.newSingleThreadScheduledExecutor();
+        this.expiryThread.scheduleWithFixedDelay(this::expireVesselLocations, EXPIRY_INTERVAL.toMillis(), EXPIRY_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+
+        // Subscribe before loading, so that no events are lost between the snapshots and the live feed. The events
+        // are buffered until both snapshots have been loaded, and then reconciled against them.
         ais.subscribeToVesselEvents(this::onVesselEvent); // No need to unsubscribe; cache and service have the same scope
+        this.startupThreads = Executors.newFixedThreadPool(2);
+        var vesselLocations = CompletableFuture.supplyAsync(() -> ais.loadAllVesselLocations(this::loadVesselLocation), startupThreads)
+                .thenAccept(result -> result.doIfSuccessful(count -> log.info("Loaded {} vessel locations", count)));
+        var vesselData = CompletableFuture.supplyAsync(() -> ais.loadAllVesselData(this::loadVesselData), startupThreads)
+                .thenAccept(result -> result.doIfSuccessful(count -> log.info("Loaded {} vessel data items", count)));
+        CompletableFuture.allOf(vesselLocations, vesselData).whenComplete((result, ex) -> {
+            if (ex != null) {
+                log.error("Error loading vessels", ex);
+            }
+            startupThreads.shutdown();
+            replayEventsReceivedDuringStartup();
+        });
+    }
+
+    /**
+     * Key used for coalescing the events of a dispatch window. Location events and data events of the same vessel are
+     * coalesced separately, since the one does not replace the other.
+     */
+    private record VesselEventKey(MMSI mmsi, boolean vesselData) {
+        static VesselEventKey of(VesselEvent vesselEvent) {
+            return new VesselEventKey(vesselEvent.mmsi(), vesselEvent instanceof VesselDataUpdatedEvent);
+        }
+    }
+
+    /**
+     * Keeps the latest event, except that an outdated event always wins over location updates so that the vessel
+     * gets removed.
+     */
+    private static VesselEvent coalesceVesselEvents(VesselEvent previous, VesselEvent next) {
+        return previous instanceof VesselLocationOutdatedEvent ? previous : next;
+    }
+
+    /**
+     * Keeps the latest event. Used by the subscriber mailboxes, whose batches are dispatch windows that have already
+     * been coalesced, so an outdated event in an earlier window must not win over a vessel that has reported again.
+     */
+    private static VesselEvent coalesceDispatchedVesselEvents(VesselEvent previous, VesselEvent next) {
+        return next;
+    }
+
+    private void recordDispatchLatency(List<VesselEvent> vesselEvents) {
+        for (var vesselEvent : vesselEvents) {
+            // Only the location timestamps tell when the message was received; the others come from the sender
+            if (vesselEvent instanceof VesselLocationUpdatedEvent lue) {
+                dispatchLatency.recordSince(lue.vesselLocation().timestamp());
+            }
+        }
+    }
+
+    private void replayEventsReceivedDuringStartup() {
+        synchronized (startupLock) {
+            // The loaded vessels were never dispatched, so the viewport subscriptions would not know where they are
+            var loadedVesselLocations = vesselLocationStore.values().toList();
+            eventDispatcherThread.execute(() -> viewportSubscriptions.rememberPositions(loadedVesselLocations));
+            log.info("Replaying {} events received during startup", eventsReceivedDuringStartup.size());
+            eventsReceivedDuringStartup.stream().filter(this::isNotOlderThanCached).forEach(this::applyVesselEvent);
+            eventsReceivedDuringStartup = null;
+            started = true;
+        }
+        if (snapshotFile != null) {
+            log.info("Will write snapshot file every {}", SNAPSHOT_INTERVAL);
+            snapshotThread.scheduleWithFixedDelay(this::writeSnapshot, SNAPSHOT_INTERVAL.toMillis(), SNAPSHOT_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void writeSnapshot() {
+        try {
+            snapshotFile.write(vesselLocationStore.values(), vesselDataCache.values());
+            log.debug("Wrote snapshot file");
+        } catch (Throwable ex) {
+            log.error("Error writing snapshot file", ex);
+        }
+    }
+
+    private void expireVesselLocations() {
+        try {
+            var now = clock.instant();
+            var candidates = vesselLocationExpiryQueue.pollOlderThan(now.minus(VESSEL_LOCATION_MAX_AGE));
+            var expired = 0;
+            for (var mmsi : candidates) {
+                // Only remove the location if no newer location has been put in the cache since it was queued
+                if (vesselLocationStore.removeKeyIf(mmsi, vesselLocation -> !isNotOutdated(vesselLocation))) {
+                    trackStore.removeKey(mmsi);
+                    vesselEventDispatcher.enqueue(new VesselLocationOutdatedEvent(mmsi, now));
+                    expired++;
+                }
+            }
+            expiredVesselLocations.increment(expired);
+            log.debug("Expired {} vessel locations", expired);
+        } catch (Throwable ex) {
+            log.error("Error expiring vessel locations", ex);
+        }
+    }
+
+    private boolean isNotOlderThanCached(VesselEvent vesselEvent) {
+        return vesselEvent instanceof VesselDataUpdatedEvent
+                ? isNotOlderThanCached(vesselDataCache::get, vesselEvent.mmsi(), vesselEvent.timestamp(), VesselData::timestamp)
+                : isNotOlderThanCached(vesselLocationStore::get, vesselEvent.mmsi(), vesselEvent.timestamp(), VesselLocation::timestamp);
+    }
+
+    private static <V> boolean isNotOlderThanCached(Function<MMSI, Optional<V>> cache, MMSI mmsi, Instant timestamp, Function<V, Instant> timestampOf) {
+        return cache.apply(mmsi).map(timestampOf).map(cachedTimestamp -> !cachedTimestamp.isAfter(timestamp)).orElse(true);
+    }
+
+    private void loadVesselLocation(VesselLocation vesselLocation) {
+        if (isNotOlderThanCached(vesselLocationStore::get, vesselLocation.mmsi(), vesselLocation.timestamp(), VesselLocation::timestamp)) {
+            putVesselLocation(vesselLocation);
+        }
+    }
+
+    private void loadVesselData(VesselData vesselData) {
+        if (isNotOlderThanCached(vesselDataCache::get, vesselData.mmsi(), vesselData.timestamp(), VesselData::timestamp)) {
+            putVesselData(vesselData);
+        }
     }
 
     private boolean isNotOutdated(VesselLocation vesselLocation) {
@@ -62,10 +250,29 @@ class VesselServiceImpl implements VesselService {
 
     @PreDestroy
     void destroy() {
+        startupThreads.shutdownNow();
+        expiryThread.shutdown();
+        snapshotThread.shutdown();
+        if (snapshotFile != null && started) {
+            writeSnapshot();
+        }
         eventDispatcherThread.shutdown();
+        subscriberThreads.shutdown();
     }
 
     private void onVesselEvent(VesselEvent vesselEvent) {
+        if (!started) {
+            synchronized (startupLock) {
+                if (!started) {
+                    eventsReceivedDuringStartup.add(vesselEvent);
+                    return;
+                }
+            }
+        }
+        applyVesselEvent(vesselEvent);
+    }
+
+    private void applyVesselEvent(VesselEvent vesselEvent) {
         switch (vesselEvent) {
             case VesselDataUpdatedEvent due -> onVesselDataUpdatedEvent(due);
             case VesselLocationUpdatedEvent lue -> onVesselLocationUpdatedEvent(lue);
@@ -73,15 +280,31 @@ class VesselServiceImpl implements VesselService {
         }
     }
 
+    private void putVesselData(VesselData vesselData) {
+        vesselDataCache.put(vesselData);
+        vesselDataIndex.put(vesselData);
+    }
+
+    private void putVesselLocation(VesselLocation vesselLocation) {
+        if (isNotOutdated(vesselLocation)) {
+            vesselLocationStore.put(vesselLocation);
+            vesselLocationExpiryQueue.schedule(vesselLocation.mmsi(), vesselLocation.timestamp());
+            if (!trackStore.add(vesselLocation)) {
+                rejectedTracks.increment();
+            }
+        }
+    }
+
     private void onVesselDataUpdatedEvent(VesselDataUpdatedEvent event) {
-        vesselDataCache.put(event.vesselData());
+        putVesselData(event.vesselData());
         vesselEventDispatcher.enqueue(event);
     }
 
     private void onVesselLocationUpdatedEvent(VesselLocationUpdatedEvent event) {
         var location = event.vesselLocation();
         if (isNotOutdated(location)) {
-            vesselLocationCache.put(location);
+            putVesselLocation(location);
+            cacheApplyLatency.recordSince(location.timestamp());
             vesselEventDispatcher.enqueue(event);
         } else {
             onVesselLocationOutdatedEvent(new VesselLocationOutdatedEvent(location.mmsi(), clock.instant()));
@@ -89,22 +312,64 @@ class VesselServiceImpl implements VesselService {
     }
 
     private void onVesselLocationOutdatedEvent(VesselLocationOutdatedEvent event) {
-        vesselLocationCache.removeKey(event.mmsi());
+        vesselLocationStore.removeKey(event.mmsi());
+        vesselLocationExpiryQueue.removeKey(event.mmsi());
+        trackStore.removeKey(event.mmsi());
         vesselEventDispatcher.enqueue(event);
     }
 
     @Override
     public Collection<VesselLocation> vesselLocations(Envelope envelope, int maxResultSize) {
-        return vesselLocationCache.values()
-                .filter(l -> envelope.contains(l.position()))
-                .limit(maxResultSize)
-                .toList();
+        return vesselLocationStore.within(envelope, maxResultSize);
+    }
+
+    @Override
+    public Collection<VesselCluster> vesselClusters(Envelope envelope, double cellSizeInDegrees) {
+        var grid = new GeoGrid(cellSizeInDegrees);
+        var clusters = new HashMap<Long, ClusterBuilder>();
+        vesselLocationStore.within(envelope, Integer.MAX_VALUE).forEach(vesselLocation -> {
+            var position = vesselLocation.position();
+            clusters.computeIfAbsent(grid.cellOf(position.latitude().value(), position.longitude().value()), ClusterBuilder::new)
+                    .add(vesselLocation, vesselDataCache.get(vesselLocation.mmsi()).map(VesselData::shipType).orElse(null));
+        });
+        return clusters.values().stream().map(ClusterBuilder::build).toList();
+    }
+
+    private static class ClusterBuilder {
+        private static final ShipType NOT_AVAILABLE = ShipType.of(0);
+        private final long cell;
+        private final HashMap<ShipType, Integer> shipTypeCounts = new HashMap<>();
+        private double latitudeSum;
+        private double longitudeSum;
+        private int count;
+
+        ClusterBuilder(long cell) {
+            this.cell = cell;
+        }
+
+        void add(VesselLocation vesselLocation, ShipType shipType) {
+            latitudeSum += vesselLocation.position().latitude().value();
+            longitudeSum += vesselLocation.position().longitude().value();
+            count++;
+            if (shipType != null) {
+                shipTypeCounts.merge(shipType, 1, Integer::sum);
+            }
+        }
+
+        VesselCluster build() {
+            var center = new InaccuratePosition(new Latitude(latitudeSum / count), new Longitude(longitudeSum / count));
+            var dominantShipType = shipTypeCounts.entrySet().stream()
+                    .max(Map.Entry.comparingByValue())
+                    .map(Map.Entry::getKey)
+                    .orElse(NOT_AVAILABLE);
+            return new VesselCluster(cell, center, count, dominantShipType);
+        }
     }
 
     @Override
     public Optional<VesselDetails> findVesselDetails(MMSI mmsi) {
         var vesselData = vesselDataCache.get(mmsi);
-        var vesselLocation = vesselLocationCache.get(mmsi);
+        var vesselLocation = vesselLocationStore.get(mmsi);
         if (vesselData.isEmpty() && vesselLocation.isEmpty()) {
             return Optional.empty();
         } else {
@@ -119,22 +384,37 @@ class VesselServiceImpl implements VesselService {
         if (sanitizedSearchTerm.length() < 3 || sanitizedSearchTerm.length() > 50) {
             return Collections.emptyList();
         }
-        return vesselDataCache.values()
-                .filter(searchTermMatches(sanitizedSearchTerm))
+        return vesselDataIndex.startingWith(sanitizedSearchTerm)
                 .limit(maxResultSize)
-                .map(vesselData -> new VesselDetails(vesselData.mmsi(), vesselData, vesselLocationCache.get(vesselData.mmsi()).orElse(null)))
+                .map(vesselData -> new VesselDetails(vesselData.mmsi(), vesselData, vesselLocationStore.get(vesselData.mmsi()).orElse(null)))
                 .toList();
     }
 
-    private Predicate<VesselData> searchTermMatches(String searchTerm) {
-        return vd ->
-                vd.callSign().value().toLowerCase().startsWith(searchTerm)
-                        || vd.vesselName().value().toLowerCase().startsWith(searchTerm)
-                        || vd.mmsi().value().toLowerCase().startsWith(searchTerm);
+    @Override
+    public Optional<VesselTrack> findVesselTrack(MMSI mmsi) {
+        requireNonNull(mmsi, "mmsi must not be null");
+        return trackStore.track(mmsi, clock.instant().minus(TRACK_MAX_AGE));
+    }
+
+    private Collection<String> searchTermsOf(VesselData vesselData) {
+        return List.of(vesselData.callSign().value(), vesselData.vesselName().value(), vesselData.mmsi().value());
     }
 
     @Override
     public Subscription subscribeToVesselEvents(Consumer<List<VesselEvent>> listener) {
-        return vesselEventDispatcher.subscribe(listener);
+        var mailbox = subscriberMailboxes.create(listener);
+        var dispatcherSubscription = vesselEventDispatcher.subscribe(mailbox);
+        Subscription subscription = () -> {
+            dispatcherSubscription.unsubscribe();
+            mailbox.close();
+        };
+        mailbox.setSubscription(subscription);
+        return subscription;
+    }
+
+    @Override
+    public ViewportSubscription subscribeToVesselEvents(Envelope envelope, Consumer<List<VesselEvent>> listener,
+                                                        Runnable disconnectListener) {
+        return viewportSubscriptions.subscribe(envelope, listener, disconnectListener);
     }
 }
@@ -0,0 +1,128 @@
+package com.example.demo.ais.service.impl;
+
+import com.example.demo.ais.domain.data.VesselLocation;
+import com.example.demo.ais.domain.events.VesselDataUpdatedEvent;
+import com.example.demo.ais.domain.events.VesselEvent;
+import com.example.demo.ais.domain.events.VesselLocationOutdatedEvent;
+import com.example.demo.ais.domain.events.VesselLocationUpdatedEvent;
+import com.example.demo.ais.domain.primitives.Envelope;
+import com.example.demo.ais.domain.primitives.MMSI;
+import com.example.demo.ais.domain.primitives.Position;
+import com.example.demo.ais.service.api.ViewportSubscription;
+import com.example.demo.ais.util.Mailbox;
+import com.example.demo.ais.util.Mailboxes;
+import com.example.demo.ais.util.SubscriberList;
+import com.example.demo.ais.util.Subscription;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Filters the dispatched vessel events for each subscriber, so that subscribers only receive the events of the
+ * vessels that are inside their envelopes. An event is also passed on if the vessel was inside the envelope before
+ * the event, so that the subscriber gets to know that the vessel has left the envelope.
+ * <p>
+ * The filtered events are delivered through a {@link Mailbox} per subscriber, so that a slow subscriber does not
+ * hold up the others. {@link #dispatch(List)} must always be called by the same thread.
+ */
+class ViewportSubscriptions {
+
+    private final SubscriberList<ViewportSubscriptionImpl> subscribers = new SubscriberList<>();
+    private final HashMap<MMSI, Position> lastDispatchedPositions = new HashMap<>();
+    private final Mailboxes<VesselEvent> mailboxes;
+
+    ViewportSubscriptions(Mailboxes<VesselEvent> mailboxes) {
+        this.mailboxes = requireNonNull(mailboxes, "mailboxes must not be null");
+    }
+
+    ViewportSubscription subscribe(Envelope envelope, Consumer<List<VesselEvent>> listener, Runnable disconnectListener) {
+        requireNonNull(disconnectListener, "disconnectListener must not be null");
+        var subscription = new ViewportSubscriptionImpl(envelope, mailboxes.create(listener));
+        subscription.subscription = subscribers.subscribe(subscription);
+        subscription.mailbox.setSubscription(() -> {
+            subscription.unsubscribe();
+            disconnectListener.run();
+        });
+        return subscription;
+    }
+
+    /**
+     * Remembers the positions of vessels that were never dispatched, such as the ones loaded from the snapshots, so
+     * that the subscribers get to know when such a vessel leaves their envelopes. Positions that have already been
+     * dispatched are kept. Must be called by the thread that calls {@link #dispatch(List)}.
+     */
+    void rememberPositions(Collection<VesselLocation> vesselLocations) {
+        for (var vesselLocation : vesselLocations) {
+            lastDispatchedPositions.putIfAbsent(vesselLocation.mmsi(), vesselLocation.position());
+        }
+    }
+
+    void dispatch(List<VesselEvent> vesselEvents) {
+        var eventsWithPositions = new ArrayList<EventWithPositions>(vesselEvents.size());
+        for (var event : vesselEvents) {
+            var previousPosition = lastDispatchedPositions.get(event.mmsi());
+            var currentPosition = switch (event) {
+                case VesselLocationUpdatedEvent e -> e.vesselLocation().position();
+                case VesselLocationOutdatedEvent e -> null;
+                case VesselDataUpdatedEvent e -> previousPosition;
+            };
+            if (currentPosition == null) {
+                lastDispatchedPositions.remove(event.mmsi());
+            } else {
+                lastDispatchedPositions.put(event.mmsi(), currentPosition);
+            }
+            eventsWithPositions.add(new EventWithPositions(event, previousPosition, currentPosition));
+        }
+        subscribers.forEach(subscriber -> subscriber.dispatch(eventsWithPositions));
+    }
+
+    private record EventWithPositions(VesselEvent event, Position previousPosition, Position currentPosition) {
+
+        boolean isRelevantTo(Envelope envelope) {
+            if (event instanceof VesselLocationOutdatedEvent && previousPosition == null) {
+                return true; // We don't know where the vessel was, so better safe than sorry
+            }
+            return (currentPosition != null && envelope.contains(currentPosition))
+                    || (previousPosition != null && envelope.contains(previousPosition));
+        }
+    }
+
+    private static class ViewportSubscriptionImpl implements ViewportSubscription {
+
+        private final Mailbox<VesselEvent> mailbox;
+        private volatile Envelope envelope;
+        private Subscription subscription;
+
+        ViewportSubscriptionImpl(Envelope envelope, Mailbox<VesselEvent> mailbox) {
+            this.envelope = requireNonNull(envelope, "envelope must not be null");
+            this.mailbox = mailbox;
+        }
+
+        void dispatch(List<EventWithPositions> eventsWithPositions) {
+            var envelope = this.envelope;
+            var events = eventsWithPositions.stream()
+                    .filter(eventWithPositions -> eventWithPositions.isRelevantTo(envelope))
+                    .map(EventWithPositions::event)
+                    .toList();
+            if (!events.isEmpty()) {
+                mailbox.accept(events);
+            }
+        }
+
+        @Override
+        public void setEnvelope(Envelope envelope) {
+            this.envelope = requireNonNull(envelope, "envelope must not be null");
+        }
+
+        @Override
+        public void unsubscribe() {
+            subscription.unsubscribe();
+            mailbox.close();
+        }
+    }
+}
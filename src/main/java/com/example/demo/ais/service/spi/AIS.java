@@ -6,15 +6,24 @@ import com.example.demo.ais.domain.events.VesselEvent;
 import com.example.demo.ais.util.Result;
 import com.example.demo.ais.util.Subscription;
 
-import java.util.Collection;
 import java.util.function.Consumer;
 
 
 public interface AIS {
 
-    Result<Collection<VesselLocation>> loadAllVesselLocations();
+    /**
+     * Loads the locations of all vessels, passing them to the consumer one at a time as they are loaded.
+     *
+     * @return the number of vessel locations passed to the consumer
+     */
+    Result<Integer> loadAllVesselLocations(Consumer<VesselLocation> consumer);
 
-    Result<Collection<VesselData>> loadAllVesselData();
+    /**
+     * Loads the data of all vessels, passing them to the consumer one at a time as they are loaded.
+     *
+     * @return the number of vessel data items passed to the consumer
+     */
+    Result<Integer> loadAllVesselData(Consumer<VesselData> consumer);
 
     Subscription subscribeToVesselEvents(Consumer<VesselEvent> subscriber);
 }
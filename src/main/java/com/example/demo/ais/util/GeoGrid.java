@@ -0,0 +1,92 @@
+package com.example.demo.ais.util;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Divides the WGS-84 latitude/longitude plane into fixed size, square grid cells. Every cell is identified by a
+ * {@code long} that can be used as a map key.
+ */
+public final class GeoGrid {
+
+    private final double cellSize;
+    private final int rows;
+    private final int columns;
+
+    public GeoGrid(double cellSizeInDegrees) {
+        if (cellSizeInDegrees <= 0 || cellSizeInDegrees > 90) {
+            throw new IllegalArgumentException("cellSizeInDegrees must be greater than 0° and less than or equal to 90°");
+        }
+        this.cellSize = cellSizeInDegrees;
+        this.rows = (int) Math.ceil(180 / cellSizeInDegrees);
+        this.columns = (int) Math.ceil(360 / cellSizeInDegrees);
+    }
+
+    public double cellSize() {
+        return cellSize;
+    }
+
+    public long cellOf(double latitude, double longitude) {
+        return cell(rowOf(latitude), columnOf(longitude));
+    }
+
+    public int rowOf(double latitude) {
+        return clamp((int) Math.floor((latitude + 90) / cellSize), rows);
+    }
+
+    public int columnOf(double longitude) {
+        return clamp((int) Math.floor((longitude + 180) / cellSize), columns);
+    }
+
+    private static int clamp(int index, int size) {
+        return Math.max(0, Math.min(size - 1, index));
+    }
+
+    private long cell(int row, int column) {
+        return (long) row * columns + column;
+    }
+
+    public double southOf(long cell) {
+        return (cell / columns) * cellSize - 90;
+    }
+
+    public double westOf(long cell) {
+        return (cell % columns) * cellSize - 180;
+    }
+
+    public double northOf(long cell) {
+        return Math.min(90, southOf(cell) + cellSize);
+    }
+
+    public double eastOf(long cell) {
+        return Math.min(180, westOf(cell) + cellSize);
+    }
+
+    /**
+     * Returns the number of cells that overlap the given bounding box.
+     */
+    public long cellCount(double south, double west, double north, double east) {
+        return (long) (rowOf(north) - rowOf(south) + 1) * (columnOf(east) - columnOf(west) + 1);
+    }
+
+    /**
+     * Performs the given action on every cell that overlaps the given bounding box.
+     */
+    public void forEachCell(double south, double west, double north, double east, LongConsumer action) {
+        var maxRow = rowOf(north);
+        var minColumn = columnOf(west);
+        var maxColumn = columnOf(east);
+        for (int row = rowOf(south); row <= maxRow; ++row) {
+            for (int column = minColumn; column <= maxColumn; ++column) {
+                action.accept(cell(row, column));
+            }
+        }
+    }
+
+    public boolean intersects(long cell, double south, double west, double north, double east) {
+        return southOf(cell) <= north && northOf(cell) >= south && westOf(cell) <= east && eastOf(cell) >= west;
+    }
+
+    public boolean isWithin(long cell, double south, double west, double north, double east) {
+        return southOf(cell) >= south && northOf(cell) <= north && westOf(cell) >= west && eastOf(cell) <= east;
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.demo.ais.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Bounded queue of event batches in front of a single subscriber. Batches are handed to the subscriber on an
+ * executor, one at a time and in order, so a slow subscriber only delays itself and not the thread publishing the
+ * events. What happens when the subscriber falls too far behind is decided by the {@link OverflowPolicy}.
+ * <p>
+ * Instances are created by {@link Mailboxes}.
+ */
+public final class Mailbox<T> implements Consumer<List<T>> {
+
+    private static final Logger log = LoggerFactory.getLogger(Mailbox.class);
+    private final Consumer<List<T>> subscriber;
+    private final Executor executor;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final Function<? super T, ?> coalescingKey;
+    private final BinaryOperator<T> coalescingFunction;
+    private final MeterRegistry meterRegistry;
+    private final Timer lag;
+    private final Counter overflows;
+    private final Meter pendingBatches;
+    private final ArrayDeque<Batch<T>> batches = new ArrayDeque<>(); // Guarded by this
+    private boolean draining; // Guarded by this
+    private boolean closed; // Guarded by this
+    private volatile Subscription subscription;
+
+    Mailbox(Consumer<List<T>> subscriber,
+            Executor executor,
+            int capacity,
+            OverflowPolicy overflowPolicy,
+            Function<? super T, ?> coalescingKey,
+            BinaryOperator<T> coalescingFunction,
+            MeterRegistry meterRegistry,
+            String name,
+            String subscriberId) {
+        this.subscriber = subscriber;
+        this.executor = executor;
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.coalescingKey = coalescingKey;
+        this.coalescingFunction = coalescingFunction;
+        this.meterRegistry = meterRegistry;
+        var tags = Tags.of("subscriber", subscriberId);
+        this.lag = Timer.builder(name + ".lag").tags(tags).register(meterRegistry);
+        this.overflows = Counter.builder(name + ".overflows").tags(tags).register(meterRegistry);
+        this.pendingBatches = Gauge.builder(name + ".pending-batches", this, Mailbox::size).tags(tags).register(meterRegistry);
+    }
+
+    /**
+     * Sets the subscription to cancel when the mailbox overflows and the policy is {@link OverflowPolicy#DISCONNECT}.
+     * The subscription is cancelled on the thread that queued the batch that did not fit.
+     */
+    public void setSubscription(Subscription subscription) {
+        this.subscription = subscription;
+    }
+
+    public synchronized int size() {
+        return batches.size();
+    }
+
+    /**
+     * Queues the batch for delivery to the subscriber.
+     */
+    @Override
+    public void accept(List<T> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        var batch = new Batch<>(events, System.nanoTime());
+        boolean startDraining = false;
+        boolean disconnect = false;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (batches.size() < capacity) {
+                batches.add(batch);
+            } else {
+                overflows.increment();
+                switch (overflowPolicy) {
+                    case DROP_OLDEST -> {
+                        batches.poll();
+                        batches.add(batch);
+                    }
+                    case COALESCE -> batches.add(coalesce(batch));
+                    case DISCONNECT -> disconnect = true;
+                }
+            }
+            if (!disconnect && !draining) {
+                draining = true;
+                startDraining = true;
+            }
+        }
+        if (disconnect) {
+            log.warn("Subscriber {} could not keep up and is disconnected", subscriber);
+            var subscription = this.subscription;
+            if (subscription != null) {
+                subscription.unsubscribe();
+            }
+            close();
+        } else if (startDraining) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException ex) {
+                log.debug("Executor rejected the mailbox, probably because the application is shutting down");
+            }
+        }
+    }
+
+    /**
+     * Coalesces all pending batches and the given one into a single batch that keeps the age of the oldest batch.
+     */
+    private Batch<T> coalesce(Batch<T> batch) {
+        var coalescedEvents = new LinkedHashMap<Object, T>();
+        var enqueuedAt = batches.isEmpty() ? batch.enqueuedAt() : batches.peek().enqueuedAt();
+        batches.add(batch);
+        for (var pending : batches) {
+            pending.events().forEach(event -> coalescedEvents.merge(coalescingKey.apply(event), event, coalescingFunction));
+        }
+        batches.clear();
+        return new Batch<>(List.copyOf(coalescedEvents.values()), enqueuedAt);
+    }
+
+    private void drain() {
+        while (true) {
+            Batch<T> batch;
+            synchronized (this) {
+                batch = batches.poll();
+                if (batch == null || closed) {
+                    draining = false;
+                    return;
+                }
+            }
+            lag.record(System.nanoTime() - batch.enqueuedAt(), TimeUnit.NANOSECONDS);
+            try {
+                subscriber.accept(batch.events());
+            } catch (Throwable ex) {
+                log.error("Subscriber threw an unexpected exception", ex);
+            }
+        }
+    }
+
+    /**
+     * Discards all pending batches and removes the metrics of the mailbox. Batches queued after this are ignored.
+     */
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            batches.clear();
+        }
+        meterRegistry.remove(lag);
+        meterRegistry.remove(overflows);
+        meterRegistry.remove(pendingBatches);
+    }
+
+    private record Batch<T>(List<T> events, long enqueuedAt) {
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.demo.ais.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Creates {@link Mailbox mailboxes} that share the same executor, capacity, overflow policy and metrics.
+ */
+public final class Mailboxes<T> {
+
+    private final String name;
+    private final Executor executor;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final Function<? super T, ?> coalescingKey;
+    private final BinaryOperator<T> coalescingFunction;
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger nextSubscriberId = new AtomicInteger();
+
+    /**
+     * @param name               the prefix of the metrics
+     * @param executor           the executor that delivers the batches to the subscribers
+     * @param capacity           the maximum number of batches pending in a mailbox
+     * @param coalescingKey      function returning the key of an event, only used by {@link OverflowPolicy#COALESCE}
+     * @param coalescingFunction function that is given the coalesced event so far and the next event with the same
+     *                           key, and returns the event to keep
+     */
+    public Mailboxes(String name,
+                     Executor executor,
+                     int capacity,
+                     OverflowPolicy overflowPolicy,
+                     Function<? super T, ?> coalescingKey,
+                     BinaryOperator<T> coalescingFunction,
+                     MeterRegistry meterRegistry) {
+        this.name = requireNonNull(name, "name must not be null");
+        this.executor = requireNonNull(executor, "executor must not be null");
+        this.overflowPolicy = requireNonNull(overflowPolicy, "overflowPolicy must not be null");
+        this.coalescingKey = requireNonNull(coalescingKey, "coalescingKey must not be null");
+        this.coalescingFunction = requireNonNull(coalescingFunction, "coalescingFunction must not be null");
+        this.meterRegistry = requireNonNull(meterRegistry, "meterRegistry must not be null");
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Creates a mailbox for the given subscriber. The mailbox should be closed once the subscriber is no longer
+     * subscribed, so that its metrics are removed.
+     */
+    public Mailbox<T> create(Consumer<List<T>> subscriber) {
+        requireNonNull(subscriber, "subscriber must not be null");
+        return new Mailbox<>(subscriber, executor, capacity, overflowPolicy, coalescingKey, coalescingFunction,
+                meterRegistry, name, Integer.toString(nextSubscriberId.incrementAndGet()));
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.demo.ais.util;
+
+/**
+ * What a {@link Mailbox} does when a subscriber has fallen so far behind that its mailbox is full.
+ */
+public enum OverflowPolicy {
+    /**
+     * Drops the oldest pending batch to make room for the new one.
+     */
+    DROP_OLDEST,
+    /**
+     * Coalesces all pending batches and the new one into a single batch, keeping one event per coalescing key.
+     */
+    COALESCE,
+    /**
+     * Unsubscribes the subscriber and discards everything that is pending.
+     */
+    DISCONNECT
+}
@@ -0,0 +1,131 @@
+package com.example.demo.ais.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Executor that runs tasks on a fixed number of worker threads, each with its own bounded queue. Tasks with the
+ * same partition key always end up on the same worker, so they are executed in the order they were submitted.
+ * <p>
+ * When a queue is full, the submitting thread waits for a short while for the worker to catch up, and thereby slows
+ * down whatever it is reading from. If the worker still has not caught up, the task is dropped.
+ */
+public final class PartitionedExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionedExecutor.class);
+    private static final long BACKPRESSURE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private final Worker[] workers;
+    private final long backpressureTimeoutNanos;
+    private final Counter backpressureWaits;
+    private final Counter droppedTasks;
+
+    /**
+     * @param name the name used for the worker threads and as the prefix of the metrics
+     */
+    public PartitionedExecutor(String name, int partitions, int queueCapacity, Duration backpressureTimeout, MeterRegistry meterRegistry) {
+        requireNonNull(name, "name must not be null");
+        requireNonNull(backpressureTimeout, "backpressureTimeout must not be null");
+        requireNonNull(meterRegistry, "meterRegistry must not be null");
+        if (partitions < 1) {
+            throw new IllegalArgumentException("partitions must be at least 1");
+        }
+        this.backpressureTimeoutNanos = backpressureTimeout.toNanos();
+        this.backpressureWaits = meterRegistry.counter(name + ".backpressure-waits");
+        this.droppedTasks = meterRegistry.counter(name + ".dropped-tasks");
+        this.workers = new Worker[partitions];
+        for (int i = 0; i < partitions; ++i) {
+            workers[i] = new Worker("%s-%d".formatted(name, i), queueCapacity);
+        }
+        Gauge.builder(name + ".queued-tasks", this::queuedTasks).register(meterRegistry);
+        Arrays.stream(workers).forEach(worker -> worker.thread.start());
+    }
+
+    /**
+     * Submits the task to the worker of the given partition key.
+     *
+     * @return true if the task was queued, false if it was dropped because the worker could not keep up
+     */
+    public boolean execute(int partitionKey, Runnable task) {
+        requireNonNull(task, "task must not be null");
+        var worker = workers[Math.floorMod(partitionKey, workers.length)];
+        if (worker.queue.offer(task)) {
+            worker.wakeUp();
+            return true;
+        }
+        backpressureWaits.increment();
+        worker.wakeUp();
+        var deadline = System.nanoTime() + backpressureTimeoutNanos;
+        while (System.nanoTime() < deadline) {
+            LockSupport.parkNanos(BACKPRESSURE_PARK_NANOS);
+            if (worker.queue.offer(task)) {
+                worker.wakeUp();
+                return true;
+            }
+        }
+        droppedTasks.increment();
+        return false;
+    }
+
+    public int queuedTasks() {
+        return Arrays.stream(workers).mapToInt(worker -> worker.queue.size()).sum();
+    }
+
+    public void shutdown() {
+        Arrays.stream(workers).forEach(Worker::stop);
+    }
+
+    private static final class Worker implements Runnable {
+        private final RingBuffer<Runnable> queue;
+        private final Thread thread;
+        private volatile boolean parked;
+        private volatile boolean running = true;
+
+        Worker(String name, int queueCapacity) {
+            queue = new RingBuffer<>(queueCapacity);
+            thread = new Thread(this, name);
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                var task = queue.poll();
+                if (task == null) {
+                    parked = true;
+                    // Check again after announcing that we are about to park, so that we do not miss a wake-up
+                    if (queue.isEmpty() && running) {
+                        LockSupport.park(this);
+                    }
+                    parked = false;
+                } else {
+                    try {
+                        task.run();
+                    } catch (Throwable ex) {
+                        log.error("Task threw an unexpected exception", ex);
+                    }
+                }
+            }
+        }
+
+        void wakeUp() {
+            if (parked) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        void stop() {
+            running = false;
+            LockSupport.unpark(thread);
+        }
+    }
+}
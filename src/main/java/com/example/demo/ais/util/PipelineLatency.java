@@ -0,0 +1,44 @@
+package com.example.demo.ais.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Records how long ago an event was received when it reaches a stage of the pipeline. All stages share the same
+ * timer name and are told apart by the {@code stage} tag, so that the stages can be compared with each other.
+ * Percentiles and a histogram are published, since it is the tail of the freshness that users notice.
+ */
+public final class PipelineLatency {
+
+    public static final String METER_NAME = "ais.pipeline.latency";
+    private final Clock clock;
+    private final Timer timer;
+
+    public PipelineLatency(String stage, Clock clock, MeterRegistry meterRegistry) {
+        requireNonNull(stage, "stage must not be null");
+        this.clock = requireNonNull(clock, "clock must not be null");
+        requireNonNull(meterRegistry, "meterRegistry must not be null");
+        this.timer = Timer.builder(METER_NAME)
+                .tag("stage", stage)
+                .publishPercentiles(0.5, 0.9, 0.99)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(1))
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records the time from the given moment until now. Moments in the future, caused by clocks that are out of
+     * sync, are recorded as zero.
+     */
+    public void recordSince(Instant receivedAt) {
+        timer.record(Math.max(0, clock.millis() - receivedAt.toEpochMilli()), TimeUnit.MILLISECONDS);
+    }
+}
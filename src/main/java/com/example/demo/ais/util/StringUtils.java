@@ -7,10 +7,6 @@ public final class StringUtils {
     private StringUtils() {
     }
 
-    public static boolean hasAsciiDigitsOnly(String s) {
-        return s.chars().allMatch(StringUtils::isAsciiDigit);
-    }
-
     public static boolean isAsciiDigit(int c) {
         return (c >= '0') && (c <= '9');
     }
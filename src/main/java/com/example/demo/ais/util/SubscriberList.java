@@ -1,60 +1,134 @@
 package com.example.demo.ais.util;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 import static java.util.Objects.requireNonNull;
 
+/**
+ * Copy-on-write list of subscribers. Subscribing and unsubscribing replace the underlying array, so visiting the
+ * subscribers is a single volatile read that neither locks nor allocates.
+ * <p>
+ * When created with a meter registry, the list times every subscriber and counts the exceptions it throws. The
+ * meters are tagged with a subscriber ID and removed from the registry when the subscriber unsubscribes.
+ */
 public final class SubscriberList<T> {
 
     private static final Logger log = LoggerFactory.getLogger(SubscriberList.class);
-    private final List<T> subscribers = new ArrayList<>();
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private static final Entry<?>[] NO_ENTRIES = new Entry<?>[0];
+    private final AtomicReference<Entry<?>[]> entries = new AtomicReference<>(NO_ENTRIES);
+    private final MeterRegistry meterRegistry;
+    private final String name;
+    private final AtomicInteger nextSubscriberId = new AtomicInteger();
+
+    public SubscriberList() {
+        this.meterRegistry = null;
+        this.name = null;
+    }
+
+    /**
+     * @param name the prefix of the per-subscriber metrics
+     */
+    public SubscriberList(MeterRegistry meterRegistry, String name) {
+        this.meterRegistry = requireNonNull(meterRegistry, "meterRegistry must not be null");
+        this.name = requireNonNull(name, "name must not be null");
+    }
 
     public Subscription subscribe(T subscriber) {
         requireNonNull(subscriber, "subscriber must not be null");
-        lock.writeLock().lock();
-        try {
-            subscribers.add(subscriber);
-        } finally {
-            lock.writeLock().unlock();
-        }
-
+        var entry = createEntry(subscriber);
+        entries.updateAndGet(current -> {
+            var updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = entry;
+            return updated;
+        });
         return () -> {
-            lock.writeLock().lock();
-            try {
-                subscribers.remove(subscriber);
-            } finally {
-                lock.writeLock().unlock();
-            }
+            entries.updateAndGet(current -> {
+                for (int i = 0; i < current.length; ++i) {
+                    if (current[i] == entry) {
+                        var updated = Arrays.copyOf(current, current.length - 1);
+                        System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                        return updated;
+                    }
+                }
+                return current;
+            });
+            entry.removeMeters(meterRegistry);
         };
     }
 
+    private Entry<T> createEntry(T subscriber) {
+        if (meterRegistry == null) {
+            return new Entry<>(subscriber, null, null);
+        }
+        var subscriberId = Integer.toString(nextSubscriberId.incrementAndGet());
+        var timer = Timer.builder(name + ".subscriber.duration")
+                .tag("subscriber", subscriberId)
+                .register(meterRegistry);
+        var failures = Counter.builder(name + ".subscriber.failures")
+                .tag("subscriber", subscriberId)
+                .register(meterRegistry);
+        return new Entry<>(subscriber, timer, failures);
+    }
+
+    public int size() {
+        return entries.get().length;
+    }
+
     /**
      * Performs the given action of each subscriber in the list. Any exceptions thrown by the action are silently
      * logged.
      */
     public void forEach(Consumer<? super T> action) {
         requireNonNull(action, "action must not be null");
-        List<T> subscribersToVisit;
-        lock.readLock().lock();
-        try {
-            subscribersToVisit = List.copyOf(subscribers);
-        } finally {
-            lock.readLock().unlock();
+        forEach((subscriber, unused) -> action.accept(subscriber), null);
+    }
+
+    /**
+     * Performs the given action of each subscriber in the list, passing the argument along. Unlike
+     * {@link #forEach(Consumer)}, this lets callers use a non-capturing action so that nothing is allocated per call.
+     * Any exceptions thrown by the action are silently logged.
+     */
+    @SuppressWarnings("unchecked")
+    public <A> void forEach(BiConsumer<? super T, ? super A> action, A argument) {
+        requireNonNull(action, "action must not be null");
+        for (var entry : entries.get()) {
+            ((Entry<T>) entry).accept(action, argument);
         }
-        subscribersToVisit.forEach(subscriber -> {
+    }
+
+    private record Entry<T>(T subscriber, Timer timer, Counter failures) {
+
+        <A> void accept(BiConsumer<? super T, ? super A> action, A argument) {
+            var start = timer == null ? 0 : System.nanoTime();
             try {
-                action.accept(subscriber);
+                action.accept(subscriber, argument);
             } catch (Throwable ex) {
+                if (failures != null) {
+                    failures.increment();
+                }
                 log.error("Action threw an unexpected exception", ex);
             }
-        });
+            if (timer != null) {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        void removeMeters(MeterRegistry meterRegistry) {
+            if (meterRegistry != null) {
+                meterRegistry.remove(timer);
+                meterRegistry.remove(failures);
+            }
+        }
     }
 }
@@ -5,10 +5,14 @@ import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BinaryOperator;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 import static java.util.Objects.requireNonNull;
 
@@ -18,26 +22,78 @@ public final class TumblingWindowEventDispatcher<T> {
     private final SubscriberList<Consumer<List<T>>> subscriberList = new SubscriberList<>();
 
     private final List<T> window = new ArrayList<>();
+    private final Map<Object, T> coalescingWindow = new LinkedHashMap<>();
+    private final Function<? super T, ?> coalescingKey;
+    private final BinaryOperator<T> coalescingFunction;
 
     public TumblingWindowEventDispatcher(ScheduledExecutorService dispatcherExecutorService, Duration windowSize) {
+        this(dispatcherExecutorService, windowSize, null, null);
+    }
+
+    /**
+     * Creates a dispatcher that coalesces the events of a window that have the same key into a single event, so that
+     * the subscribers only receive one event per key and window.
+     *
+     * @param coalescingKey      function returning the key of an event
+     * @param coalescingFunction function that is given the coalesced event so far and the next event with the same
+     *                           key, and returns the event to keep
+     */
+    public TumblingWindowEventDispatcher(ScheduledExecutorService dispatcherExecutorService,
+                                         Duration windowSize,
+                                         Function<? super T, ?> coalescingKey,
+                                         BinaryOperator<T> coalescingFunction) {
         requireNonNull(dispatcherExecutorService, "dispatcherExecutorService must not be null");
         requireNonNull(windowSize, "windowSize must not be null");
+        if ((coalescingKey == null) != (coalescingFunction == null)) {
+            throw new IllegalArgumentException("coalescingKey and coalescingFunction must either both be null or both be non-null");
+        }
+        this.coalescingKey = coalescingKey;
+        this.coalescingFunction = coalescingFunction;
         log.info("Will dispatch events every {}", windowSize);
         dispatcherExecutorService.scheduleWithFixedDelay(this::dispatchEvents, windowSize.toMillis(), windowSize.toMillis(), TimeUnit.MILLISECONDS);
     }
 
     public void enqueue(T event) {
         requireNonNull(event, "event must not be null");
-        synchronized (window) {
-            window.add(event);
+        if (coalescingKey == null) {
+            synchronized (window) {
+                window.add(event);
+            }
+        } else {
+            var key = coalescingKey.apply(event);
+            synchronized (coalescingWindow) {
+                coalescingWindow.merge(key, event, coalescingFunction);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of events waiting for the current window to be dispatched.
+     */
+    public int windowSize() {
+        if (coalescingKey == null) {
+            synchronized (window) {
+                return window.size();
+            }
+        } else {
+            synchronized (coalescingWindow) {
+                return coalescingWindow.size();
+            }
         }
     }
 
     private void dispatchEvents() {
         List<T> eventsToDispatch;
-        synchronized (window) {
-            eventsToDispatch = List.copyOf(window);
-            window.clear();
+        if (coalescingKey == null) {
+            synchronized (window) {
+                eventsToDispatch = List.copyOf(window);
+                window.clear();
+            }
+        } else {
+            synchronized (coalescingWindow) {
+                eventsToDispatch = List.copyOf(coalescingWindow.values());
+                coalescingWindow.clear();
+            }
         }
         log.trace("Dispatching {} events", eventsToDispatch.size());
         subscriberList.forEach(subscriber -> subscriber.accept(eventsToDispatch));
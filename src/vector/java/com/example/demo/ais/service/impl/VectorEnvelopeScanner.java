@@ -0,0 +1,47 @@
+package com.example.demo.ais.service.impl;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Compares as many slots at a time as fit into the widest SIMD registers of the CPU. Loaded by
+ * {@link EnvelopeScanner#create()}, which requires the {@code jdk.incubator.vector} module at runtime.
+ */
+final class VectorEnvelopeScanner implements EnvelopeScanner {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    @Override
+    public void scan(int[] latitudes, int[] longitudes, int length, int south, int north, int west, int east,
+                     long[] matches) {
+        if (south > north || west > east) {
+            return;
+        }
+        // A value is within [min, max] if value - min <= max - min as unsigned integers, as long as the range is
+        // less than 2^32 wide. That takes two comparisons instead of four.
+        var latitudeRange = north - south;
+        var longitudeRange = east - west;
+        var upperBound = SPECIES.loopBound(length);
+        var slot = 0;
+        for (; slot < upperBound; slot += SPECIES.length()) {
+            var inside = IntVector.fromArray(SPECIES, latitudes, slot).sub(south)
+                    .compare(VectorOperators.UNSIGNED_LE, latitudeRange)
+                    .and(IntVector.fromArray(SPECIES, longitudes, slot).sub(west)
+                            .compare(VectorOperators.UNSIGNED_LE, longitudeRange));
+            // The number of lanes divides 64, so the lanes of a vector always end up in the same word
+            matches[slot >>> 6] |= inside.toLong() << slot;
+        }
+        for (; slot < length; ++slot) {
+            if (Integer.compareUnsigned(latitudes[slot] - south, latitudeRange) <= 0
+                    && Integer.compareUnsigned(longitudes[slot] - west, longitudeRange) <= 0) {
+                matches[slot >>> 6] |= 1L << slot;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "vector envelope scanner (" + SPECIES + ")";
+    }
+}